@@ -0,0 +1,31 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Runs the JMH benchmarks of the bench folder and writes the results as JSON
+ *  (jmh-result.json unless -rff names another file), so that runs can be
+ *  compared to find regressions.
+ *  Takes the usual JMH options, for example:
+ *  java graph.BenchmarkRunner GraphLoad -p graphFile=USA.txt,grid-100000,usa-10000000
+ *  With no benchmark pattern every benchmark runs.
+ *  JMH and its dependencies are in lib/; compile src and bench with those jars
+ *  on both the class path and the processor path, so that the annotation
+ *  processor generates the benchmark classes, and run from the project folder,
+ *  where USA.txt is.
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        if (!jmhArgs.contains("-rf")) {
+            jmhArgs.add("-rf");
+            jmhArgs.add("json");
+        }
+        if (!jmhArgs.contains("-rff")) {
+            jmhArgs.add("-rff");
+            jmhArgs.add("jmh-result.json");
+        }
+        org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+    }
+}
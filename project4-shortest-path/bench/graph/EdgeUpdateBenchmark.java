@@ -0,0 +1,113 @@
+package graph;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** JMH benchmark of Graph.updateEdgeCost with a ShortestPathTreeCache that
+ *  holds numTrees trees, so the time of an update is the time to repair
+ *  every cached tree. Throughput mode gives the updates per second and
+ *  average time mode the repair latency of one update.
+ *  Invocations alternate between raising the cost of an edge and restoring
+ *  it, so the graph does not drift; half of the updates are increases and
+ *  half decreases. The edges are either random edges of the graph, which
+ *  are seldom in a tree, or edges on shortest paths of the cached trees,
+ *  which are the expensive case.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EdgeUpdateBenchmark {
+    private static final int NUM_EDGES = 1024; // a power of two, so the next edge is a mask away
+
+    @Param({"USA.txt", "usa-10000", "usa-1000000"})
+    public String graphFile; // a graph file, or kind-numNodes (see GraphGenerator.resolve)
+
+    @Param({"1", "16"})
+    public int numTrees; // number of cached trees to repair
+
+    @Param({"random", "onPath"})
+    public String edges; // which edges are updated
+
+    private Graph graph;
+    private int[] ends1 = new int[NUM_EDGES]; // one end of each updated edge
+    private int[] ends2 = new int[NUM_EDGES]; // the other end
+    private int[] originalCosts = new int[NUM_EDGES];
+    private boolean raised; // whether the current edge has its raised cost
+    private int next; // index of the current edge
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        Dijkstra dijkstra;
+        int[] origins = new int[numTrees];
+        int[] pathBuffer;
+        int length;
+        int v;
+        int e;
+        int i;
+
+        graph = new Graph();
+        graph.loadGraph(GraphGenerator.resolve(graphFile));
+        dijkstra = new Dijkstra(graph);
+        dijkstra.setTreeCache(new ShortestPathTreeCache(Long.MAX_VALUE));
+        pathBuffer = new int[graph.numNodes()];
+        for (int t = 0; t < numTrees; t++) { // every query misses, so it caches the tree of its origin
+            origins[t] = random.nextInt(graph.numNodes());
+            dijkstra.computeShortestPath(origins[t], origins[t], pathBuffer);
+        }
+        i = 0;
+        while (i < NUM_EDGES) {
+            if (edges.equals("onPath")) {
+                length = dijkstra.computeShortestPath(origins[random.nextInt(numTrees)],
+                        random.nextInt(graph.numNodes()), pathBuffer);
+                if (length < 2) {
+                    continue;
+                }
+                v = random.nextInt(length - 1);
+                ends1[i] = pathBuffer[v];
+                ends2[i] = pathBuffer[v + 1];
+            } else {
+                v = random.nextInt(graph.numNodes());
+                if (graph.firstEdge(v) == graph.firstEdge(v + 1)) {
+                    continue;
+                }
+                e = graph.firstEdge(v) + random.nextInt(graph.firstEdge(v + 1) - graph.firstEdge(v));
+                ends1[i] = v;
+                ends2[i] = graph.target(e);
+            }
+            originalCosts[i] = edgeCost(ends1[i], ends2[i]);
+            i++;
+        }
+    }
+
+    /**
+     * Returns the smallest cost of the edges from one node to another
+     */
+    private int edgeCost(int from, int to) {
+        int cost = Integer.MAX_VALUE;
+        for (int e = graph.firstEdge(from); e < graph.firstEdge(from + 1); e++) {
+            if (graph.target(e) == to) {
+                cost = Math.min(cost, graph.cost(e));
+            }
+        }
+        return cost;
+    }
+
+    @Benchmark
+    public int update() {
+        int i = next;
+        if (raised) {
+            next = (i + 1) & (NUM_EDGES - 1);
+            raised = false;
+            return graph.updateEdgeCost(ends1[i], ends2[i], originalCosts[i]);
+        }
+        raised = true;
+        return graph.updateEdgeCost(ends1[i], ends2[i], 2 * originalCosts[i] + 1);
+    }
+}
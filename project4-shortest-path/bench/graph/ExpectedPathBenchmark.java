@@ -0,0 +1,51 @@
+package graph;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** JMH benchmark of Dijkstra.computeShortestPath on the USA.txt queries whose
+ *  expected paths are in the expectedResults folder, one query per pair.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpectedPathBenchmark {
+    @Param({"Phoenix-Boston", "Portland-Orlando", "Seattle-Orlando", "Seattle-Raleigh"})
+    public String pair; // origin and destination city, as in the names of the expected results
+
+    private Dijkstra dijkstra;
+    private int originId;
+    private int destId;
+    private int[] pathBuffer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Graph graph = new Graph();
+        String[] cities = pair.split("-");
+
+        graph.loadGraph("USA.txt");
+        dijkstra = new Dijkstra(graph);
+        pathBuffer = new int[graph.numNodes()];
+        originId = findCity(graph, cities[0]);
+        destId = findCity(graph, cities[1]);
+    }
+
+    private static int findCity(Graph graph, String name) {
+        String[] cities = graph.getCities();
+        for (int i = 0; i < cities.length; i++) {
+            if (name.equals(cities[i])) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No city " + name + " in USA.txt");
+    }
+
+    @Benchmark
+    public int expectedPair() {
+        return dijkstra.computeShortestPath(originId, destId, pathBuffer);
+    }
+}
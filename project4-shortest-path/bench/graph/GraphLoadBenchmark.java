@@ -0,0 +1,58 @@
+package graph;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** JMH benchmark of graph loading: parsing the text file into a Graph, and
+ *  loading the same graph from its binary snapshot with BinaryGraphFile.load,
+ *  which is what Graph.loadGraph does once the snapshot has been written.
+ *  loadSnapshot compares only the size and time of the text file, as
+ *  loadGraph does; loadSnapshotDeepCheck also compares the CRC32 of both files.
+ *  Each invocation loads the whole file, so the score is the time per load.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphLoadBenchmark {
+    @Param({"USA.txt", "usa-10000", "usa-1000000"})
+    public String graphFile; // a graph file, or kind-numNodes (see GraphGenerator.resolve)
+
+    private String file; // the graph file, once a generated graph has been written
+
+    /**
+     * Writes the snapshot of the graph file, so that loadSnapshot never parses the text
+     */
+    @Setup(Level.Trial)
+    public void writeSnapshot() throws IOException {
+        file = GraphGenerator.resolve(graphFile);
+        new Graph().loadGraph(file);
+    }
+
+    @Benchmark
+    public Graph parseText() throws IOException {
+        return GraphFileParser.parse(file).build();
+    }
+
+    @Benchmark
+    public Graph loadSnapshot() throws IOException {
+        return loadSnapshot(false);
+    }
+
+    @Benchmark
+    public Graph loadSnapshotDeepCheck() throws IOException {
+        return loadSnapshot(true);
+    }
+
+    private Graph loadSnapshot(boolean deepCheck) throws IOException {
+        Graph graph = new Graph();
+        if (!BinaryGraphFile.load(file, graph, deepCheck)) {
+            throw new IllegalStateException("No valid snapshot of " + file);
+        }
+        return graph;
+    }
+}
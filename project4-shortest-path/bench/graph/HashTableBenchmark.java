@@ -0,0 +1,43 @@
+package graph;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** JMH benchmark of building a HashTable: inserts numCities city names into
+ *  a table that starts small, so every doubling of the table is part of the
+ *  score. HashTableFindBenchmark times the lookups in a table of the same
+ *  names.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashTableBenchmark {
+    @Param({"1000", "64000", "1024000"})
+    public int numCities; // number of names inserted
+
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+
+        names = new String[numCities];
+        for (int i = 0; i < numCities; i++) {
+            names[i] = "City" + i + "_" + random.nextInt(1000);
+        }
+    }
+
+    @Benchmark
+    public HashTable insert() {
+        HashTable table = new HashTable(16);
+        for (int i = 0; i < numCities; i++) {
+            table.insert(names[i], i);
+        }
+        return table;
+    }
+}
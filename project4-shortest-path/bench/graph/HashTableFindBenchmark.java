@@ -0,0 +1,57 @@
+package graph;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** JMH benchmark of HashTable.find, for lookups of names that are in the
+ *  table and of names that are not, at several table sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashTableFindBenchmark {
+    private static final int NUM_KEYS = 4096; // names looked up in turn, a power of two
+
+    @Param({"1000", "64000", "1024000"})
+    public int numCities; // number of names in the table
+
+    private HashTable table;
+    private String[] hits = new String[NUM_KEYS];
+    private String[] misses = new String[NUM_KEYS];
+    private int next; // index of the next name
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] names = new String[numCities];
+        Random random = new Random(42);
+
+        table = new HashTable(16);
+        for (int i = 0; i < numCities; i++) {
+            names[i] = "City" + i + "_" + random.nextInt(1000);
+            table.insert(names[i], i);
+        }
+        for (int i = 0; i < NUM_KEYS; i++) {
+            hits[i] = names[random.nextInt(numCities)];
+            misses[i] = "Nowhere" + i;
+        }
+    }
+
+    @Benchmark
+    public int findHit() {
+        int i = next;
+        next = (i + 1) & (NUM_KEYS - 1);
+        return table.find(hits[i]);
+    }
+
+    @Benchmark
+    public int findMiss() {
+        int i = next;
+        next = (i + 1) & (NUM_KEYS - 1);
+        return table.find(misses[i]);
+    }
+}
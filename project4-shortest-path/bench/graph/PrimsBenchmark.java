@@ -0,0 +1,52 @@
+package graph;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** JMH benchmark of the minimum spanning tree engines: PrimsMST.prims,
+ *  KruskalMST.kruskal and BoruvkaMST.boruvka, one tree of the whole graph per
+ *  invocation. Kruskal sorts and Boruvka searches in parallel, so their
+ *  scores depend on the number of cores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrimsBenchmark {
+    @Param({"USA.txt", "usa-10000", "usa-1000000"})
+    public String graphFile; // a graph file, or kind-numNodes (see GraphGenerator.resolve)
+
+    private PrimsMST prims;
+    private KruskalMST kruskal;
+    private BoruvkaMST boruvka;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Graph graph = new Graph();
+        graph.loadGraph(GraphGenerator.resolve(graphFile));
+        prims = new PrimsMST(graph);
+        kruskal = new KruskalMST(graph);
+        boruvka = new BoruvkaMST(graph);
+    }
+
+    @Benchmark
+    public void prims() {
+        prims.prims();
+    }
+
+    @Benchmark
+    public long kruskal() {
+        kruskal.kruskal();
+        return kruskal.getTotalCost();
+    }
+
+    @Benchmark
+    public long boruvka() {
+        boruvka.boruvka();
+        return boruvka.getTotalCost();
+    }
+}
@@ -0,0 +1,98 @@
+package graph;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** JMH benchmark of the priority queues: a full Dijkstra search of
+ *  SearchWorkspace from the next of a fixed set of random origins, and
+ *  Prim's algorithm over the whole graph, with each IndexedMinQueue.
+ *  "binary" is the built-in binary heap of SearchWorkspace, which Prim does
+ *  not have; RadixHeap can not run Prim, whose keys are not monotone, so
+ *  prim skips both (the invocation does nothing).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueueBenchmark {
+    private static final int NUM_ORIGINS = 64; // origins searched in turn, a power of two
+
+    @Param({"USA.txt", "usa-10000", "usa-1000000"})
+    public String graphFile; // a graph file, or kind-numNodes (see GraphGenerator.resolve)
+
+    @Param({"binary", "MinHeap", "PriorityQueue", "DaryHeap4", "DaryHeap8", "PairingHeap", "RadixHeap", "DialQueue"})
+    public String queue; // the priority queue of both algorithms
+
+    private Graph graph;
+    private SearchWorkspace workspace;
+    private PrimsMST prims; // null if the queue can not run Prim
+    private int[] origins = new int[NUM_ORIGINS];
+    private int next; // index of the next origin
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        int numNodes;
+
+        graph = new Graph();
+        graph.loadGraph(GraphGenerator.resolve(graphFile));
+        numNodes = graph.numNodes();
+        workspace = new SearchWorkspace(numNodes);
+        workspace.setQueue(newQueue());
+        if (!queue.equals("binary") && !queue.equals("RadixHeap")) {
+            prims = new PrimsMST(graph);
+            prims.setQueue(newQueue());
+        }
+        for (int i = 0; i < NUM_ORIGINS; i++) {
+            origins[i] = random.nextInt(numNodes);
+        }
+    }
+
+    /**
+     * Returns a new queue of the kind named by the queue parameter, null for the built-in heap
+     */
+    private IndexedMinQueue newQueue() {
+        int numNodes = graph.numNodes();
+
+        switch (queue) {
+            case "binary":
+                return null;
+            case "MinHeap":
+                return new MinHeap(numNodes);
+            case "PriorityQueue":
+                return new PriorityQueue(numNodes);
+            case "DaryHeap4":
+                return new DaryHeap(numNodes, 4);
+            case "DaryHeap8":
+                return new DaryHeap(numNodes, 8);
+            case "PairingHeap":
+                return new PairingHeap(numNodes);
+            case "RadixHeap":
+                return new RadixHeap(numNodes);
+            case "DialQueue":
+                return new DialQueue(numNodes, DialQueue.maxEdgeCost(graph));
+            default:
+                throw new IllegalArgumentException("Unknown queue: " + queue);
+        }
+    }
+
+    @Benchmark
+    public int dijkstra() {
+        int origin = origins[next];
+        next = (next + 1) & (NUM_ORIGINS - 1);
+        workspace.dijkstra(graph, origin, -1);
+        return workspace.getNumSettled();
+    }
+
+    @Benchmark
+    public void prim() {
+        if (prims != null) {
+            prims.prims();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package graph;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** JMH benchmark of the latency of one Dijkstra.computeShortestPath query
+ *  between random pairs of nodes. The pairs come from a fixed seed, so every
+ *  run (and every graph of the same size) asks the same queries; each
+ *  invocation answers the next pair.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShortestPathBenchmark {
+    private static final int NUM_PAIRS = 1024; // a power of two, so the next pair is a mask away
+
+    @Param({"USA.txt", "usa-10000", "usa-1000000"})
+    public String graphFile; // a graph file, or kind-numNodes (see GraphGenerator.resolve)
+
+    private Dijkstra dijkstra;
+    private int[] origins = new int[NUM_PAIRS];
+    private int[] destinations = new int[NUM_PAIRS];
+    private int[] pathBuffer;
+    private int next; // index of the next pair
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Graph graph = new Graph();
+        Random random = new Random(42);
+
+        graph.loadGraph(GraphGenerator.resolve(graphFile));
+        dijkstra = new Dijkstra(graph);
+        pathBuffer = new int[graph.numNodes()];
+        for (int i = 0; i < NUM_PAIRS; i++) {
+            origins[i] = random.nextInt(graph.numNodes());
+            destinations[i] = random.nextInt(graph.numNodes());
+        }
+    }
+
+    @Benchmark
+    public int randomPair() {
+        int i = next;
+        next = (i + 1) & (NUM_PAIRS - 1);
+        return dijkstra.computeShortestPath(origins[i], destinations[i], pathBuffer);
+    }
+}
@@ -0,0 +1,299 @@
+package graph;
+
+/** Class ALT. A* search with landmarks and the triangle inequality.
+ *
+ *  A few nodes are picked as landmarks, and the cost from every landmark to
+ *  every node is precomputed with Dijkstra's algorithm. For a landmark L the
+ *  triangle inequality gives |cost(L, t) - cost(L, v)| <= cost(v, t) on our
+ *  symmetric graphs, so the maximum over all landmarks is a lower bound on
+ *  the remaining cost from v to the destination t. Unlike the straight-line
+ *  bound used by AStar, this bound follows the edge costs, so it stays tight
+ *  when long edges do not match the distance on the map.
+ *
+ *  Landmarks are picked with the farthest-point strategy: each new landmark is
+ *  the node farthest from the landmarks picked so far. A landmark only helps
+ *  queries inside its own connected component, so first every component
+ *  (largest first, ignoring single nodes) gets one landmark, as long as
+ *  landmarks are left, and the farthest-point strategy places the rest.
+ *  The cost table has numNodes * numLandmarks entries; numLandmarks is
+ *  lowered so that the table fits into one Java array.
+ *  Like AStar, the search arrays are reused between queries and stamped with
+ *  the number of the query instead of being cleared.
+ */
+
+import java.util.*;
+import java.awt.Point;
+
+public class ALT implements ShortestPathAlgorithm {
+    private static final int INF = Integer.MAX_VALUE; // cost of a node that has not been reached yet
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8; // largest array the JVM allocates
+
+    private Graph graph; // stores the graph of CityNode-s and edges connecting them
+    private List<Integer> shortestPath = null; // nodes that are part of the shortest path
+    private int numNodes; // stores the number of nodes in the graph
+    private int[] offsets; // CSR offsets: the edges of node v are at offsets[v] .. offsets[v + 1] - 1
+    private int[] targets; // CSR targets: the neighbor id of each edge
+    private int[] costs; // CSR costs: the cost of each edge
+
+    private int numLandmarks; // number of landmarks
+    private int[] landmarks; // node ids of the landmarks
+    private int[] landmarkCosts; // landmarkCosts[v * numLandmarks + l] = cost from landmark l to node v
+    private int[] destCosts; // costs from each landmark to the destination of the current query
+
+    private int[] cost; // cost of the best known path from the origin to each node
+    private int[] parent; // previous node on the best known path from the origin
+    private int[] stamp; // the query that last wrote cost and parent of each node
+    private int generation; // number of the current query
+    private int numSettled; // number of nodes settled by the last search
+    private IndexedMinQueue queue; // priority queue of the search, reused by every query
+
+    /** Constructor. Picks the landmarks and precomputes their cost tables.
+     *
+     * @param graph graph that has already been loaded with Graph.loadGraph
+     * @param numLandmarks number of landmarks to use; lowered to the number of
+     * nodes, and to what fits into the cost table (MAX_ARRAY_SIZE / numNodes)
+     */
+    public ALT(Graph graph, int numLandmarks) {
+        this.graph = graph;
+        this.numNodes = graph.numNodes();
+        this.offsets = graph.getOffsets();
+        this.targets = graph.getTargets();
+        this.costs = graph.getCosts();
+        this.numLandmarks = Math.min(numLandmarks, numNodes);
+        if ((long) numNodes * this.numLandmarks > MAX_ARRAY_SIZE) {
+            this.numLandmarks = MAX_ARRAY_SIZE / numNodes;
+        }
+        this.landmarks = new int[this.numLandmarks];
+        this.landmarkCosts = new int[numNodes * this.numLandmarks];
+        this.destCosts = new int[this.numLandmarks];
+        this.cost = new int[numNodes];
+        this.parent = new int[numNodes];
+        this.stamp = new int[numNodes];
+        this.queue = new MinHeap(numNodes);
+        selectLandmarks();
+    }
+
+    /**
+     * Picks the landmarks and fills in landmarkCosts. The first landmark of a
+     * component is the node farthest from some node of the component; after
+     * every component has one, each next landmark is the reachable node whose
+     * cost to the closest landmark so far is the largest.
+     */
+    private void selectLandmarks() {
+        Dijkstra dijkstra = new Dijkstra(graph);
+        int[] closest = new int[numNodes]; // cost from each node to its closest landmark so far
+        int[] seeds = componentSeeds(); // one node per component of two or more nodes, largest first
+        int[] costsFromLandmark;
+        int next;
+
+        Arrays.fill(closest, INF);
+        for (int l = 0; l < numLandmarks; l++) {
+            if (l < seeds.length) {
+                next = farthest(dijkstra.computeCosts(seeds[l]));
+            } else {
+                next = farthest(closest);
+            }
+            landmarks[l] = next;
+            costsFromLandmark = dijkstra.computeCosts(next);
+            for (int v = 0; v < numNodes; v++) {
+                landmarkCosts[v * numLandmarks + l] = costsFromLandmark[v];
+                if (costsFromLandmark[v] < closest[v]) {
+                    closest[v] = costsFromLandmark[v];
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the connected components with a breadth-first search over the CSR arrays
+     * @return the smallest node id of every component with at least two nodes,
+     * ordered by component size, largest first
+     */
+    private int[] componentSeeds() {
+        boolean[] seen = new boolean[numNodes];
+        int[] bfs = new int[numNodes];
+        List<int[]> components = new ArrayList<>(); // {seed, size} of each component
+        int head;
+        int tail;
+        int v;
+        int[] seeds;
+
+        for (int s = 0; s < numNodes; s++) {
+            if (seen[s]) {
+                continue;
+            }
+            seen[s] = true;
+            bfs[0] = s;
+            head = 0;
+            tail = 1;
+            while (head < tail) {
+                v = bfs[head++];
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    if (!seen[targets[e]]) {
+                        seen[targets[e]] = true;
+                        bfs[tail++] = targets[e];
+                    }
+                }
+            }
+            if (tail > 1) {
+                components.add(new int[] {s, tail});
+            }
+        }
+        components.sort((a, b) -> Integer.compare(b[1], a[1]));
+        seeds = new int[components.size()];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = components.get(i)[0];
+        }
+        return seeds;
+    }
+
+    /**
+     * Returns the node with the largest finite cost
+     * @param costsFrom array of costs indexed by node id
+     * @return id of the farthest reachable node
+     */
+    private int farthest(int[] costsFrom) {
+        int best = 0;
+        for (int v = 1; v < numNodes; v++) {
+            if (costsFrom[v] != INF && (costsFrom[best] == INF || costsFrom[v] > costsFrom[best])) {
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Lower bound on the cost of the shortest path from v to the destination:
+     * the maximum of |cost(L, dest) - cost(L, v)| over the landmarks L that reach both nodes
+     * @param v id of the node
+     * @return the heuristic value of v
+     */
+    private int heuristic(int v) {
+        int best = 0;
+        int fromLandmark;
+        int base = v * numLandmarks;
+
+        for (int l = 0; l < numLandmarks; l++) {
+            fromLandmark = landmarkCosts[base + l];
+            if (fromLandmark != INF && destCosts[l] != INF) {
+                best = Math.max(best, Math.abs(destCosts[l] - fromLandmark));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the shortest path between the origin vertex and the destination vertex.
+     * @param origin source node
+     * @param destination destination node
+     * @return the ArrayList of nodeIds (of nodes on the shortest path),
+     * empty if the destination can not be reached from the origin
+     */
+    public List<Integer> computeShortestPath(CityNode origin, CityNode destination) {
+        int destId = graph.getId(destination);
+
+        aStar(graph.getId(origin), destId);
+        shortestPath = new ArrayList<>();
+        if (stamp[destId] != generation || queue.contains(destId)) { // not settled
+            return shortestPath;
+        }
+        for (int v = destId; v != -1; v = parent[v]) {
+            shortestPath.add(v);
+        }
+        Collections.reverse(shortestPath);
+        return shortestPath;
+    }
+
+    /**
+     * Runs A* from the origin with the landmark heuristic,
+     * and stops when the destination is settled.
+     * @param originId node id of the origin
+     * @param destId node id of the destination
+     */
+    private void aStar(int originId, int destId) {
+        int v;
+        int u;
+        int newCost;
+        generation++;
+        if (generation == 0) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        numSettled = 0;
+        System.arraycopy(landmarkCosts, destId * numLandmarks, destCosts, 0, numLandmarks);
+
+        stamp[originId] = generation;
+        cost[originId] = 0;
+        parent[originId] = -1;
+        queue.clear();
+        queue.insert(originId, heuristic(originId));
+
+        while (!queue.isEmpty()) {
+            v = queue.removeMin();
+            numSettled++;
+            if (v == destId) {
+                break;
+            }
+
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                u = targets[e];
+                newCost = cost[v] + costs[e];
+                if (stamp[u] != generation) { // first time the search reaches u
+                    stamp[u] = generation;
+                    cost[u] = newCost;
+                    parent[u] = v;
+                    queue.insert(u, newCost + heuristic(u));
+                } else if (queue.contains(u) && newCost < cost[u]) {
+                    cost[u] = newCost;
+                    parent[u] = v;
+                    queue.decreaseKey(u, newCost + heuristic(u));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the node ids of the landmarks
+     * @return array of landmark node ids
+     */
+    public int[] getLandmarks() {
+        return landmarks.clone();
+    }
+
+    /**
+     * Sets the priority queue of the search, for example a DaryHeap or a PairingHeap.
+     * The heuristic is consistent, so keys are never below the last removed
+     * key and a RadixHeap works too.
+     * @param queue a queue sized for the number of nodes of the graph
+     */
+    public void setQueue(IndexedMinQueue queue) {
+        this.queue = queue;
+    }
+
+    /**
+     * Returns the number of nodes settled by the last call to computeShortestPath
+     * @return number of settled nodes
+     */
+    public int getNumSettled() {
+        return numSettled;
+    }
+
+    /**
+     * Return the shortest path as a 2D array of Points.
+     * Each element in the array is another array that has 2 Points:
+     * these two points define the beginning and end of a line segment.
+     * @return 2D array of points
+     */
+    public Point[][] getPath() {
+        if (shortestPath == null || shortestPath.isEmpty())
+            return null;
+        return graph.getPath(shortestPath); // delegating this task to the Graph class
+    }
+
+    /** Set the shortestPath to null.
+     *  Called when the user presses Reset button.
+     */
+    public void resetPath() {
+        shortestPath = null;
+    }
+}
@@ -0,0 +1,226 @@
+package graph;
+
+/** Class AStar. Implementation of the A* search on the graph for finding the
+ *  shortest path. The search is guided by a lower bound on the remaining cost,
+ *  computed from the straight-line distance between the map locations of the
+ *  cities (see CityNode.getLocation).
+ *
+ *  Edge costs are not in the same units as map coordinates, so the constructor
+ *  calibrates a scale factor: the smallest cost per unit of straight-line
+ *  length over all edges of the graph. Every edge costs at least scale times
+ *  its length, so (by the triangle inequality) every path from v to the
+ *  destination costs at least scale times the straight-line distance between
+ *  them. The heuristic therefore never overestimates, and it is consistent,
+ *  so a node never has to be settled twice.
+ *
+ *  The cost and parent arrays are allocated once and stamped with the number
+ *  of the query instead of being cleared, so a query costs O(settled nodes), not O(n).
+ */
+
+import java.util.*;
+import java.awt.Point;
+
+public class AStar implements ShortestPathAlgorithm {
+    private Graph graph; // stores the graph of CityNode-s and edges connecting them
+    private List<Integer> shortestPath = null; // nodes that are part of the shortest path
+    private int numNodes; // stores the number of nodes in the graph
+    private int[] offsets; // CSR offsets: the edges of node v are at offsets[v] .. offsets[v + 1] - 1
+    private int[] targets; // CSR targets: the neighbor id of each edge
+    private int[] costs; // CSR costs: the cost of each edge
+    private int[] xs; // x coordinate of the location of each node
+    private int[] ys; // y coordinate of the location of each node
+    private double scale; // lower bound on the cost of one unit of straight-line length
+
+    private int[] cost; // cost of the best known path from the origin to each node
+    private int[] parent; // previous node on the best known path from the origin
+    private int[] stamp; // the query that last wrote cost and parent of each node
+    private int generation; // number of the current query
+    private int numSettled; // number of nodes settled by the last search
+    private IndexedMinQueue queue; // priority queue of the search, reused by every query
+
+    /** Constructor
+     *
+     * @param graph graph that has already been loaded with Graph.loadGraph
+     */
+    public AStar(Graph graph) {
+        Point p;
+        this.graph = graph;
+        this.numNodes = graph.numNodes();
+        this.offsets = graph.getOffsets();
+        this.targets = graph.getTargets();
+        this.costs = graph.getCosts();
+        this.xs = new int[numNodes];
+        this.ys = new int[numNodes];
+        for (int v = 0; v < numNodes; v++) {
+            p = graph.getPoint(v);
+            xs[v] = p.x;
+            ys[v] = p.y;
+        }
+        this.scale = calibrateScale();
+        this.cost = new int[numNodes];
+        this.parent = new int[numNodes];
+        this.stamp = new int[numNodes];
+        this.queue = new MinHeap(numNodes);
+    }
+
+    /**
+     * Finds the smallest ratio cost / straight-line length over all edges.
+     * Edges whose endpoints are at the same location do not constrain the scale.
+     * The result is shrunk by a tiny factor so that floating point rounding
+     * can never make the heuristic overestimate.
+     * @return the scale factor of the heuristic
+     */
+    private double calibrateScale() {
+        double minRatio = Double.POSITIVE_INFINITY;
+        double length;
+
+        for (int v = 0; v < numNodes; v++) {
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                length = distance(v, targets[e]);
+                if (length > 0) {
+                    minRatio = Math.min(minRatio, costs[e] / length);
+                }
+            }
+        }
+        if (minRatio == Double.POSITIVE_INFINITY) {
+            return 0; // no edge has a length: fall back to Dijkstra's
+        }
+        return minRatio * (1 - 1e-9);
+    }
+
+    /**
+     * Returns the straight-line distance between the locations of two nodes
+     * @param v id of the first node
+     * @param u id of the second node
+     * @return the distance between v and u on the map
+     */
+    private double distance(int v, int u) {
+        double dx = xs[v] - xs[u];
+        double dy = ys[v] - ys[u];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Lower bound on the cost of the shortest path from v to the destination
+     * @param v id of the node
+     * @param destId id of the destination
+     * @return the heuristic value of v
+     */
+    private int heuristic(int v, int destId) {
+        return (int) (scale * distance(v, destId));
+    }
+
+    /**
+     * Returns the shortest path between the origin vertex and the destination vertex.
+     * @param origin source node
+     * @param destination destination node
+     * @return the ArrayList of nodeIds (of nodes on the shortest path),
+     * empty if the destination can not be reached from the origin
+     */
+    public List<Integer> computeShortestPath(CityNode origin, CityNode destination) {
+        int destId = graph.getId(destination);
+
+        aStar(graph.getId(origin), destId);
+        shortestPath = new ArrayList<>();
+        if (stamp[destId] != generation || queue.contains(destId)) { // not settled
+            return shortestPath;
+        }
+        for (int v = destId; v != -1; v = parent[v]) {
+            shortestPath.add(v);
+        }
+        Collections.reverse(shortestPath);
+        return shortestPath;
+    }
+
+    /**
+     * Runs A* from the origin: the heap is ordered by the cost from the origin
+     * plus the heuristic value, and the search stops when the destination is settled.
+     * @param originId node id of the origin
+     * @param destId node id of the destination
+     */
+    private void aStar(int originId, int destId) {
+        int v;
+        int u;
+        int newCost;
+        generation++;
+        if (generation == 0) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        numSettled = 0;
+
+        stamp[originId] = generation;
+        cost[originId] = 0;
+        parent[originId] = -1;
+        queue.clear();
+        queue.insert(originId, heuristic(originId, destId));
+
+        while (!queue.isEmpty()) {
+            v = queue.removeMin();
+            numSettled++;
+            if (v == destId) {
+                break;
+            }
+
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                u = targets[e];
+                newCost = cost[v] + costs[e];
+                if (stamp[u] != generation) { // first time the search reaches u
+                    stamp[u] = generation;
+                    cost[u] = newCost;
+                    parent[u] = v;
+                    queue.insert(u, newCost + heuristic(u, destId));
+                } else if (queue.contains(u) && newCost < cost[u]) {
+                    cost[u] = newCost;
+                    parent[u] = v;
+                    queue.decreaseKey(u, newCost + heuristic(u, destId));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the scale factor of the heuristic calibrated from the edge costs
+     * @return cost lower bound per unit of straight-line length
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Sets the priority queue of the search, for example a DaryHeap or a PairingHeap.
+     * The heuristic is consistent, so keys are never below the last removed
+     * key and a RadixHeap works too.
+     * @param queue a queue sized for the number of nodes of the graph
+     */
+    public void setQueue(IndexedMinQueue queue) {
+        this.queue = queue;
+    }
+
+    /**
+     * Returns the number of nodes settled by the last call to computeShortestPath
+     * @return number of settled nodes
+     */
+    public int getNumSettled() {
+        return numSettled;
+    }
+
+    /**
+     * Return the shortest path as a 2D array of Points.
+     * Each element in the array is another array that has 2 Points:
+     * these two points define the beginning and end of a line segment.
+     * @return 2D array of points
+     */
+    public Point[][] getPath() {
+        if (shortestPath == null || shortestPath.isEmpty())
+            return null;
+        return graph.getPath(shortestPath); // delegating this task to the Graph class
+    }
+
+    /** Set the shortestPath to null.
+     *  Called when the user presses Reset button.
+     */
+    public void resetPath() {
+        shortestPath = null;
+    }
+}
@@ -0,0 +1,222 @@
+package graph;
+
+/** Class BidirectionalDijkstra. Finds the shortest path by running Dijkstra's
+ *  algorithm from the origin (forward search) and from the destination
+ *  (backward search) at the same time, and stops when the two searches meet.
+ *  Every edge read by Graph.loadGraph is added in both directions, so the
+ *  backward search can use the same adjacency arrays as the forward search.
+ *  The cost and parent arrays and the queues are allocated once; like in
+ *  SearchWorkspace, an entry only counts if its stamp is the number of the
+ *  current query, so a query only touches the nodes it visits. Each search
+ *  has its own IndexedMinQueue, MinHeaps unless setQueue gives others.
+ */
+
+import java.util.*;
+import java.awt.Point;
+
+public class BidirectionalDijkstra implements ShortestPathAlgorithm {
+    private Graph graph; // stores the graph of CityNode-s and edges connecting them
+    private List<Integer> shortestPath = null; // nodes that are part of the shortest path
+    private int numNodes; // stores the number of nodes in the graph
+    private int[] offsets; // CSR offsets: the edges of node v are at offsets[v] .. offsets[v + 1] - 1
+    private int[] targets; // CSR targets: the neighbor id of each edge
+    private int[] costs; // CSR costs: the cost of each edge
+
+    private int[] forwardCost; // cost of the best known path from the origin to each node
+    private int[] backwardCost; // cost of the best known path from each node to the destination
+    private int[] forwardParent; // previous node on the best known path from the origin
+    private int[] backwardParent; // next node on the best known path to the destination
+    private int[] forwardStamp; // the query that last wrote forwardCost and forwardParent of each node
+    private int[] backwardStamp; // the query that last wrote backwardCost and backwardParent of each node
+    private int generation; // number of the current query
+    private IndexedMinQueue forwardQueue; // frontier of the forward search
+    private IndexedMinQueue backwardQueue; // frontier of the backward search
+    private long bestCost; // cost of the best origin-destination path seen so far
+    private int meetingNode; // the node where the best path found so far crosses from one search to the other
+    private int numSettled; // number of nodes settled by the last search (in both directions)
+
+    /** Constructor
+     *
+     * @param graph graph that has already been loaded with Graph.loadGraph
+     */
+    public BidirectionalDijkstra(Graph graph) {
+        this.graph = graph;
+        this.numNodes = graph.numNodes();
+        this.offsets = graph.getOffsets();
+        this.targets = graph.getTargets();
+        this.costs = graph.getCosts();
+        this.forwardCost = new int[numNodes];
+        this.backwardCost = new int[numNodes];
+        this.forwardParent = new int[numNodes];
+        this.backwardParent = new int[numNodes];
+        this.forwardStamp = new int[numNodes];
+        this.backwardStamp = new int[numNodes];
+        this.forwardQueue = new MinHeap(numNodes);
+        this.backwardQueue = new MinHeap(numNodes);
+    }
+
+    /**
+     * Returns the shortest path between the origin vertex and the destination vertex.
+     * @param origin source node
+     * @param destination destination node
+     * @return the ArrayList of nodeIds (of nodes on the shortest path),
+     * empty if the destination can not be reached from the origin
+     */
+    public List<Integer> computeShortestPath(CityNode origin, CityNode destination) {
+        int originId = graph.getId(origin);
+        int destId = graph.getId(destination);
+
+        search(originId, destId);
+        shortestPath = new ArrayList<>();
+        if (meetingNode == -1) { // the two searches never met
+            return shortestPath;
+        }
+
+        // walk back from the meeting node to the origin, then forward to the destination
+        for (int v = meetingNode; v != -1; v = forwardParent[v]) {
+            shortestPath.add(v);
+        }
+        Collections.reverse(shortestPath);
+        for (int v = backwardParent[meetingNode]; v != -1; v = backwardParent[v]) {
+            shortestPath.add(v);
+        }
+        return shortestPath;
+    }
+
+    /**
+     * Runs the forward and the backward search. The two searches alternate:
+     * each step settles a node of the search whose last settled node was
+     * cheaper, so both search balls grow at the same rate. The cost of the
+     * last node a search settled is a lower bound of the costs in its queue,
+     * so the search stops once the node just settled plus the last node of
+     * the other search cost at least as much as the best path found so far:
+     * no path through an unsettled node can then be shorter.
+     * @param originId node id of the origin
+     * @param destId node id of the destination
+     */
+    private void search(int originId, int destId) {
+        int forwardKey = 0; // cost of the node the forward search settled last
+        int backwardKey = 0; // cost of the node the backward search settled last
+        int v;
+
+        generation++;
+        if (generation == 0) {
+            Arrays.fill(forwardStamp, 0);
+            Arrays.fill(backwardStamp, 0);
+            generation = 1;
+        }
+        forwardQueue.clear();
+        backwardQueue.clear();
+        numSettled = 0;
+
+        forwardStamp[originId] = generation;
+        forwardCost[originId] = 0;
+        forwardParent[originId] = -1;
+        forwardQueue.insert(originId, 0);
+        backwardStamp[destId] = generation;
+        backwardCost[destId] = 0;
+        backwardParent[destId] = -1;
+        backwardQueue.insert(destId, 0);
+        bestCost = (originId == destId) ? 0 : Long.MAX_VALUE;
+        meetingNode = (originId == destId) ? originId : -1;
+
+        while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()) {
+            if (forwardKey <= backwardKey) {
+                v = forwardQueue.removeMin();
+                forwardKey = forwardCost[v];
+                if ((long) forwardKey + backwardKey >= bestCost) {
+                    break; // the best path found so far is the shortest path
+                }
+                expand(v, forwardQueue, forwardCost, forwardParent, forwardStamp, backwardCost, backwardStamp);
+            } else {
+                v = backwardQueue.removeMin();
+                backwardKey = backwardCost[v];
+                if ((long) forwardKey + backwardKey >= bestCost) {
+                    break;
+                }
+                expand(v, backwardQueue, backwardCost, backwardParent, backwardStamp, forwardCost, forwardStamp);
+            }
+        }
+    }
+
+    /**
+     * Relaxes the edges of a node that was just settled by one of the searches.
+     * Whenever a relaxed node has already been reached by the other search,
+     * the path through it is a candidate for the shortest path.
+     * @param v the settled node
+     * @param queue the frontier of this search
+     * @param cost the cost array of this search
+     * @param parent the parent array of this search
+     * @param stamp the stamp array of this search
+     * @param otherCost the cost array of the other search
+     * @param otherStamp the stamp array of the other search
+     */
+    private void expand(int v, IndexedMinQueue queue, int[] cost, int[] parent, int[] stamp,
+                        int[] otherCost, int[] otherStamp) {
+        int u;
+        int newCost;
+        numSettled++;
+
+        for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+            u = targets[e];
+            newCost = cost[v] + costs[e];
+            if (stamp[u] != generation) { // first time this search reaches u
+                stamp[u] = generation;
+                cost[u] = newCost;
+                parent[u] = v;
+                queue.insert(u, newCost);
+            } else if (queue.contains(u) && newCost < cost[u]) {
+                cost[u] = newCost;
+                parent[u] = v;
+                queue.decreaseKey(u, newCost);
+            }
+            if ((otherStamp[u] == generation) && ((long) cost[u] + otherCost[u] < bestCost)) {
+                bestCost = (long) cost[u] + otherCost[u];
+                meetingNode = u;
+            }
+        }
+    }
+
+    /**
+     * Sets the priority queues of the two searches, for example DaryHeaps.
+     * Each search removes its keys in increasing order, so RadixHeaps work too.
+     * @param forward the queue of the forward search, sized for the number of nodes of the graph
+     * @param backward the queue of the backward search, another queue of the same size
+     * @throws IllegalArgumentException if both are the same queue
+     */
+    public void setQueue(IndexedMinQueue forward, IndexedMinQueue backward) {
+        if (forward == backward) {
+            throw new IllegalArgumentException("The forward and the backward search need a queue each");
+        }
+        this.forwardQueue = forward;
+        this.backwardQueue = backward;
+    }
+
+    /**
+     * Returns the number of nodes settled by the last call to
+     * computeShortestPath, counting both the forward and the backward search
+     * @return number of settled nodes
+     */
+    public int getNumSettled() {
+        return numSettled;
+    }
+
+    /**
+     * Return the shortest path as a 2D array of Points.
+     * Each element in the array is another array that has 2 Points:
+     * these two points define the beginning and end of a line segment.
+     * @return 2D array of points
+     */
+    public Point[][] getPath() {
+        if (shortestPath == null || shortestPath.isEmpty())
+            return null;
+        return graph.getPath(shortestPath); // delegating this task to the Graph class
+    }
+
+    /** Set the shortestPath to null.
+     *  Called when the user presses Reset button.
+     */
+    public void resetPath() {
+        shortestPath = null;
+    }
+}
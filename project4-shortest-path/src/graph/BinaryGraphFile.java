@@ -0,0 +1,384 @@
+package graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/** Binary snapshot of a graph that was read from a text file.
+ *
+ *  Parsing the text file is the slowest part of starting up, so after the
+ *  first parse the graph is written next to the text file (USA.txt becomes
+ *  USA.txt.bin) as flat arrays, and later runs memory-map the snapshot and
+ *  copy the arrays in bulk. The snapshot records the length and the last
+ *  modified time of the text file it was made from, and a load compares only
+ *  those two, so it never reads the text file. If they differ, or the
+ *  snapshot has a different format version, it is ignored and the text file
+ *  is parsed again. The same happens if the snapshot is damaged: its size
+ *  must match the header, and load checks that the offsets are monotone, that
+ *  every edge leads to a node of the graph, that no cost is negative and that
+ *  the city names fit the name bytes.
+ *
+ *  The header also holds the CRC32 of the text file and the CRC32 of all
+ *  sections after the header. They are only compared on a deep check, which
+ *  reads both files in full and so also catches an edited text file that
+ *  kept its length and time, and damage to coordinates, costs or names.
+ *  load(String, Graph, boolean), Graph.loadGraph(String, boolean) and
+ *  OffHeapGraph.open(String, boolean) ask for it.
+ *
+ *  Layout (little-endian):
+ *  <pre>
+ *  header      magic, version, source length, source last modified time (ms),
+ *              source CRC32, CRC32 of the sections below,
+ *              numNodes, numEdges, number of name bytes, 0   (56 bytes)
+ *  x, y        double[numNodes] each, the coordinates from the text file
+ *  offsets     int[numNodes + 1]  CSR offsets
+ *  targets     int[numEdges]      CSR neighbor ids
+ *  costs       int[numEdges]      CSR edge costs
+ *  nameEnds    int[numNodes]      end of each city name in the name bytes
+ *  names       the city names, ISO-8859-1
+ *  </pre>
+ */
+public class BinaryGraphFile {
+    public static final String SUFFIX = ".bin"; // appended to the name of the text file
+    private static final int MAGIC = 0x47525048; // "GRPH"
+    private static final int VERSION = 2; // increase when the layout changes
+    private static final int HEADER_BYTES = 56;
+    private static final int SNAPSHOT_CRC_POSITION = 32; // where the CRC32 of the sections is in the header
+    private static final int WINDOW = 1 << 30; // bytes mapped or buffered at a time
+
+    private BinaryGraphFile() {
+    }
+
+    /**
+     * Loads the graph from the snapshot of the given text file, if there is an
+     * up-to-date one. Only the length and the last modified time of the text
+     * file are compared, see load(String, Graph, boolean) for a deep check.
+     * @param filename name of the text file that has nodes and edges
+     * @param graph an empty graph
+     * @return true if the graph was loaded, false if there is no valid snapshot
+     * @throws IOException if the text file can not be read
+     */
+    public static boolean load(String filename, Graph graph) throws IOException {
+        return load(filename, graph, false);
+    }
+
+    /**
+     * Loads the graph from the snapshot of the given text file, if there is an
+     * up-to-date one
+     * @param filename name of the text file that has nodes and edges
+     * @param graph an empty graph
+     * @param deepCheck whether to also compare the CRC32 of the text file and of the snapshot sections,
+     * which reads both files in full
+     * @return true if the graph was loaded, false if there is no valid snapshot
+     * @throws IOException if the text file can not be read
+     */
+    public static boolean load(String filename, Graph graph, boolean deepCheck) throws IOException {
+        Path source = Paths.get(filename);
+        Path snapshot = Paths.get(filename + SUFFIX);
+
+        Files.size(source); // fails if the text file is missing, like the text parser would
+        if (!Files.isRegularFile(snapshot)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            Layout layout = readLayout(channel, source, deepCheck);
+            if (layout == null) {
+                return false;
+            }
+
+            int numNodes = layout.numNodes;
+            int numNameBytes = layout.numNameBytes;
+            double[] x = new double[numNodes];
+            double[] y = new double[numNodes];
+            int[] offsets = new int[numNodes + 1];
+            int[] targets = new int[layout.numEdges];
+            int[] costs = new int[layout.numEdges];
+            int[] nameEnds = new int[numNodes];
+            byte[] names = new byte[numNameBytes];
+            readDoubles(channel, layout.xPosition, x);
+            readDoubles(channel, layout.yPosition, y);
+            readInts(channel, layout.offsetsPosition, offsets);
+            readInts(channel, layout.targetsPosition, targets);
+            readInts(channel, layout.costsPosition, costs);
+            readInts(channel, layout.nameEndsPosition, nameEnds);
+            channel.map(FileChannel.MapMode.READ_ONLY, layout.namesPosition, numNameBytes).get(names);
+            if (!isValid(offsets, targets, costs)) {
+                return false; // damaged snapshot
+            }
+
+            CityNode[] nodes = new CityNode[numNodes];
+            int start = 0;
+            for (int v = 0; v < numNodes; v++) {
+                if (nameEnds[v] < start || nameEnds[v] > numNameBytes) {
+                    return false; // damaged snapshot
+                }
+                nodes[v] = new CityNode(new String(names, start, nameEnds[v] - start, StandardCharsets.ISO_8859_1),
+                        x[v], y[v]);
+                start = nameEnds[v];
+            }
+            graph.setGraph(nodes, offsets, targets, costs);
+            return true;
+        }
+    }
+
+    /**
+     * Reads and checks the header of a snapshot
+     * @param channel the open snapshot file
+     * @param source the text file the snapshot should have been made from
+     * @param deepCheck whether to also compare the CRC32 of the text file and of the snapshot sections
+     * @return where the sections of the snapshot are, null if the snapshot is stale or damaged
+     * @throws IOException if a file can not be read
+     */
+    static Layout readLayout(FileChannel channel, Path source, boolean deepCheck) throws IOException {
+        if (channel.size() < HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getLong() != Files.size(source)
+                || header.getLong() != Files.getLastModifiedTime(source).toMillis()) {
+            return null;
+        }
+        long sourceCrc = header.getLong();
+        long snapshotCrc = header.getLong();
+        Layout layout = new Layout(header.getInt(), header.getInt(), header.getInt());
+        if (layout.numNodes < 0 || layout.numEdges < 0 || layout.numNameBytes < 0
+                || channel.size() != layout.namesPosition + layout.numNameBytes) {
+            return null;
+        }
+        if (deepCheck && (sourceCrc != checksum(source) || snapshotCrc != checksum(channel, HEADER_BYTES))) {
+            return null;
+        }
+        return layout;
+    }
+
+    /**
+     * Checks the CSR arrays read from a snapshot: offsets that start at 0, never
+     * decrease and end at the number of edges, targets that are node ids, and
+     * costs that are not negative
+     * @return true if the arrays form a valid graph
+     */
+    private static boolean isValid(int[] offsets, int[] targets, int[] costs) {
+        int numNodes = offsets.length - 1;
+
+        if (offsets[0] != 0 || offsets[numNodes] != targets.length) {
+            return false;
+        }
+        for (int v = 0; v < numNodes; v++) {
+            if (offsets[v] > offsets[v + 1]) {
+                return false;
+            }
+        }
+        for (int e = 0; e < targets.length; e++) {
+            if (targets[e] < 0 || targets[e] >= numNodes || costs[e] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the snapshot of a graph that was just parsed from the given text file.
+     * The snapshot is written to a temporary file first and then renamed,
+     * so a reader never sees a half-written snapshot.
+     * @param filename name of the text file the graph was read from
+     * @param graph the graph
+     * @param x x coordinate of each node, as read from the text file
+     * @param y y coordinate of each node, as read from the text file
+     * @throws IOException if the snapshot can not be written
+     */
+    public static void save(String filename, Graph graph, double[] x, double[] y) throws IOException {
+        Path source = Paths.get(filename);
+        Path snapshot = Paths.get(filename + SUFFIX);
+        Path tmp = Paths.get(filename + SUFFIX + ".tmp");
+        int numNodes = graph.numNodes();
+        int[] offsets = graph.getOffsets();
+        int[] nameEnds = new int[numNodes];
+        byte[][] names = new byte[numNodes][];
+        int numNameBytes = 0;
+
+        for (int v = 0; v < numNodes; v++) {
+            String city = graph.getNode(v).getCity();
+            for (int i = 0; i < city.length(); i++) {
+                if (city.charAt(i) > 0xff) {
+                    throw new IOException("City name " + city + " can not be stored as ISO-8859-1");
+                }
+            }
+            names[v] = city.getBytes(StandardCharsets.ISO_8859_1);
+            numNameBytes += names[v].length;
+            nameEnds[v] = numNameBytes;
+        }
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putLong(Files.size(source));
+            buffer.putLong(Files.getLastModifiedTime(source).toMillis());
+            buffer.putLong(checksum(source));
+            buffer.putLong(0); // the CRC32 of the sections, filled in once they are written
+            buffer.putInt(numNodes);
+            buffer.putInt(offsets[numNodes]);
+            buffer.putInt(numNameBytes);
+            buffer.putInt(0); // pads the header, so the doubles that follow are aligned
+            for (int v = 0; v < numNodes; v++) {
+                buffer = ensureRoom(channel, buffer, 8);
+                buffer.putDouble(x[v]);
+            }
+            for (int v = 0; v < numNodes; v++) {
+                buffer = ensureRoom(channel, buffer, 8);
+                buffer.putDouble(y[v]);
+            }
+            buffer = writeInts(channel, buffer, offsets, numNodes + 1);
+            buffer = writeInts(channel, buffer, graph.getTargets(), offsets[numNodes]);
+            buffer = writeInts(channel, buffer, graph.getCosts(), offsets[numNodes]);
+            buffer = writeInts(channel, buffer, nameEnds, numNodes);
+            for (int v = 0; v < numNodes; v++) {
+                buffer = ensureRoom(channel, buffer, names[v].length);
+                buffer.put(names[v]);
+            }
+            flush(channel, buffer);
+            buffer.putLong(checksum(channel, HEADER_BYTES));
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, SNAPSHOT_CRC_POSITION + buffer.position());
+            }
+        }
+        Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** The sizes of a snapshot and the file positions of its sections */
+    static final class Layout {
+        final int numNodes;
+        final int numEdges;
+        final int numNameBytes;
+        final long xPosition;
+        final long yPosition;
+        final long offsetsPosition;
+        final long targetsPosition;
+        final long costsPosition;
+        final long nameEndsPosition;
+        final long namesPosition;
+
+        Layout(int numNodes, int numEdges, int numNameBytes) {
+            this.numNodes = numNodes;
+            this.numEdges = numEdges;
+            this.numNameBytes = numNameBytes;
+            xPosition = HEADER_BYTES;
+            yPosition = xPosition + 8L * numNodes;
+            offsetsPosition = yPosition + 8L * numNodes;
+            targetsPosition = offsetsPosition + 4L * (numNodes + 1);
+            costsPosition = targetsPosition + 4L * numEdges;
+            nameEndsPosition = costsPosition + 4L * numEdges;
+            namesPosition = nameEndsPosition + 4L * numNodes;
+        }
+    }
+
+    /**
+     * Computes the CRC32 of a file
+     * @param file the file
+     * @return the checksum
+     */
+    private static long checksum(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return checksum(channel, 0);
+        }
+    }
+
+    /**
+     * Computes the CRC32 of an open file from the given position to its end,
+     * reading it through memory-mapped windows
+     * @param channel the file, open for reading
+     * @param start position of the first byte
+     * @return the checksum
+     */
+    private static long checksum(FileChannel channel, long start) throws IOException {
+        CRC32 crc = new CRC32();
+        long size = channel.size();
+        for (long position = start; position < size; position += WINDOW) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position)));
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Copies ints from the file into an array, mapping at most WINDOW bytes at a time
+     */
+    private static void readInts(FileChannel channel, long position, int[] dest) throws IOException {
+        int chunk = WINDOW / 4;
+        for (int i = 0; i < dest.length; i += chunk) {
+            int count = Math.min(chunk, dest.length - i);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count);
+            mapped.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(dest, i, count);
+            position += 4L * count;
+        }
+    }
+
+    /**
+     * Copies doubles from the file into an array, mapping at most WINDOW bytes at a time
+     */
+    private static void readDoubles(FileChannel channel, long position, double[] dest) throws IOException {
+        int chunk = WINDOW / 8;
+        for (int i = 0; i < dest.length; i += chunk) {
+            int count = Math.min(chunk, dest.length - i);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * count);
+            mapped.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(dest, i, count);
+            position += 8L * count;
+        }
+    }
+
+    /**
+     * Writes the first count ints of an array through the buffer
+     * @return the buffer
+     */
+    private static ByteBuffer writeInts(FileChannel channel, ByteBuffer buffer, int[] src, int count)
+            throws IOException {
+        int i = 0;
+        int n;
+        while (i < count) {
+            buffer = ensureRoom(channel, buffer, 4);
+            n = Math.min(count - i, buffer.remaining() / 4);
+            buffer.asIntBuffer().put(src, i, n);
+            buffer.position(buffer.position() + 4 * n);
+            i += n;
+        }
+        return buffer;
+    }
+
+    /**
+     * Makes sure the buffer has room for the given number of bytes,
+     * writing it out or replacing it with a larger one
+     * @return the buffer to use
+     */
+    private static ByteBuffer ensureRoom(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        flush(channel, buffer);
+        if (buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocateDirect(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return buffer;
+    }
+
+    /**
+     * Writes the contents of the buffer to the channel and clears it
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,308 @@
+package graph;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Class BoruvkaMST. Boruvka's algorithm for the minimum spanning tree, run in
+ *  parallel on a ForkJoinPool.
+ *
+ *  Every node starts as a component of its own. In each round every component
+ *  picks its cheapest edge to another component, all picked edges join the
+ *  tree, and the components they connect are merged; the number of components
+ *  at least halves, so there are at most log2(numNodes) rounds. Edges are
+ *  compared by cost and then by index (see EdgeList.key), so no two edges tie
+ *  and the picked edges never close a cycle.
+ *
+ *  The work of a round is split over ranges of edges and nodes:
+ *  - the cheapest edge of each component is found by all threads at once,
+ *    with a compare-and-set minimum on an AtomicLongArray;
+ *  - the picked edges are merged with a union-find on one thread; this only
+ *    touches one entry per component, which is few after the first rounds;
+ *  - every node then looks up its new component, and the edges inside a
+ *    component are dropped, both in parallel.
+ *
+ *  On a graph that is not connected the result is a minimum spanning forest.
+ */
+public class BoruvkaMST implements SpanningTreeAlgorithm {
+    private static final int GRAIN = 1 << 13; // number of edges or nodes one task handles without splitting
+    private static final long NONE = Long.MAX_VALUE; // no cheapest edge found yet
+
+    private Graph graph; // the graph of CityNode-s, null for an OffHeapGraph
+    private GraphStorage storage; // the nodes and edges the algorithm runs on
+    private ForkJoinPool pool; // runs the parallel steps
+    private int numNodes; // number of nodes in the graph
+    private List<PrimsMST.Edges> minSpanningTree = null; // edges of the last computed tree
+    private long totalCost; // total cost of the edges of the last computed tree
+
+    private EdgeList edges; // the edges of the graph
+    private int[] component; // component of each node: the node id of its root
+    private int[] parent; // union-find parent of each root, used while merging
+    private int[] size; // number of nodes in the component of each root
+    private AtomicLongArray cheapest; // key of the cheapest edge leaving each component, NONE if there is none
+    private int[] active; // indices of the edges that may still join the tree
+    private int numActive; // number of entries in active
+
+    /**
+     * Constructor; the parallel steps run on the common pool
+     * @param storage nodes and edges of the graph, for example a Graph or an OffHeapGraph
+     */
+    public BoruvkaMST(GraphStorage storage) {
+        this(storage, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor
+     * @param storage nodes and edges of the graph, for example a Graph or an OffHeapGraph
+     * @param pool the pool that runs the parallel steps
+     */
+    public BoruvkaMST(GraphStorage storage, ForkJoinPool pool) {
+        this.graph = storage instanceof Graph ? (Graph) storage : null;
+        this.storage = storage;
+        this.pool = pool;
+        this.numNodes = storage.numNodes();
+    }
+
+    /**
+     * Computes the minimum spanning tree (a forest if the graph is not connected)
+     * @return the edges of the tree
+     */
+    public List<PrimsMST.Edges> computeShortestPath() {
+        boruvka();
+        return minSpanningTree;
+    }
+
+    /**
+     * Runs Boruvka's algorithm
+     */
+    public void boruvka() {
+        int[] roots = new int[numNodes]; // the components that still exist
+        int numRoots = numNodes;
+        boolean merged = true;
+
+        edges = EdgeList.of(storage);
+        component = new int[numNodes];
+        parent = new int[numNodes];
+        size = new int[numNodes];
+        cheapest = new AtomicLongArray(numNodes);
+        active = new int[edges.size];
+        numActive = edges.size;
+        minSpanningTree = new ArrayList<>(Math.max(0, numNodes - 1));
+        totalCost = 0;
+        parallelFor(0, numNodes, (start, end) -> {
+            for (int v = start; v < end; v++) {
+                component[v] = v;
+                parent[v] = v;
+                size[v] = 1;
+                roots[v] = v;
+                cheapest.set(v, NONE);
+            }
+        });
+        parallelFor(0, numActive, (start, end) -> {
+            for (int i = start; i < end; i++) {
+                active[i] = i;
+            }
+        });
+
+        while (numActive > 0 && merged) {
+            findCheapestEdges();
+            merged = false;
+            for (int r = 0; r < numRoots; r++) { // join the picked edges, one thread
+                long key = cheapest.get(roots[r]);
+                if (key != NONE) {
+                    cheapest.set(roots[r], NONE);
+                    merged |= union((int) key);
+                }
+            }
+            parallelFor(0, numNodes, (start, end) -> {
+                for (int v = start; v < end; v++) {
+                    component[v] = find(component[v]); // does not write, so threads can share the parents
+                }
+            });
+            int kept = 0;
+            for (int r = 0; r < numRoots; r++) {
+                if (parent[roots[r]] == roots[r]) {
+                    roots[kept++] = roots[r];
+                }
+            }
+            numRoots = kept;
+            dropInnerEdges();
+        }
+    }
+
+    /**
+     * Sets cheapest[c] to the key of the cheapest active edge leaving component c, for every component
+     */
+    private void findCheapestEdges() {
+        parallelFor(0, numActive, (start, end) -> {
+            for (int k = start; k < end; k++) {
+                int i = active[k];
+                int a = component[edges.from[i]];
+                int b = component[edges.to[i]];
+                if (a != b) {
+                    long key = edges.key(i);
+                    lowerTo(a, key);
+                    lowerTo(b, key);
+                }
+            }
+        });
+    }
+
+    /**
+     * Lowers cheapest[c] to key, unless another thread has already stored a smaller key
+     */
+    private void lowerTo(int c, long key) {
+        long current = cheapest.get(c);
+        while (key < current && !cheapest.compareAndSet(c, current, key)) {
+            current = cheapest.get(c);
+        }
+    }
+
+    /**
+     * Adds an edge to the tree if its ends are still in different components, and merges them
+     * @param i index of the edge
+     * @return true if the edge was added
+     */
+    private boolean union(int i) {
+        int a = find(component[edges.from[i]]);
+        int b = find(component[edges.to[i]]);
+        if (a == b) {
+            return false; // both components picked this edge, and the other one came first
+        }
+        if (size[a] < size[b]) { // hang the smaller component under the larger one, so finds stay short
+            int t = a;
+            a = b;
+            b = t;
+        }
+        parent[b] = a;
+        size[a] += size[b];
+        minSpanningTree.add(new PrimsMST.Edges(edges.from[i], edges.to[i]));
+        totalCost += edges.cost[i];
+        return true;
+    }
+
+    /**
+     * Finds the root of a component in the union-find, without changing it
+     */
+    private int find(int c) {
+        while (parent[c] != c) {
+            c = parent[c];
+        }
+        return c;
+    }
+
+    /**
+     * Removes the edges whose ends are now in the same component from active.
+     * Each task counts the edges of its slice that stay, the counts are added
+     * up to give every slice its place, and then each task copies its edges there.
+     */
+    private void dropInnerEdges() {
+        int numSlices = (numActive + GRAIN - 1) / GRAIN;
+        int[] offsets = new int[numSlices + 1];
+        int[] kept = new int[numActive];
+
+        parallelFor(0, numSlices, (start, end) -> {
+            for (int s = start; s < end; s++) {
+                int count = 0;
+                for (int k = s * GRAIN; k < Math.min(numActive, (s + 1) * GRAIN); k++) {
+                    int i = active[k];
+                    if (component[edges.from[i]] != component[edges.to[i]]) {
+                        count++;
+                    }
+                }
+                offsets[s + 1] = count;
+            }
+        }, 1);
+        for (int s = 0; s < numSlices; s++) {
+            offsets[s + 1] += offsets[s];
+        }
+        parallelFor(0, numSlices, (start, end) -> {
+            for (int s = start; s < end; s++) {
+                int next = offsets[s];
+                for (int k = s * GRAIN; k < Math.min(numActive, (s + 1) * GRAIN); k++) {
+                    int i = active[k];
+                    if (component[edges.from[i]] != component[edges.to[i]]) {
+                        kept[next++] = i;
+                    }
+                }
+            }
+        }, 1);
+        active = kept;
+        numActive = offsets[numSlices];
+    }
+
+    /** Work on the range start .. end - 1 of a parallel loop */
+    private interface RangeBody {
+        void run(int start, int end);
+    }
+
+    private void parallelFor(int start, int end, RangeBody body) {
+        parallelFor(start, end, body, GRAIN);
+    }
+
+    /**
+     * Runs body over start .. end - 1 on the pool, in ranges of at most grain indices
+     */
+    private void parallelFor(int start, int end, RangeBody body, int grain) {
+        if (end - start <= grain) {
+            body.run(start, end);
+        } else {
+            pool.invoke(new RangeTask(start, end, body, grain));
+        }
+    }
+
+    /** Splits a range in halves until it is small enough to run */
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int start; // first index of the range
+        private final int end; // one past the last index of the range
+        private final RangeBody body; // the work on a range
+        private final int grain; // largest range that is not split
+
+        RangeTask(int start, int end, RangeBody body, int grain) {
+            this.start = start;
+            this.end = end;
+            this.body = body;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= grain) {
+                body.run(start, end);
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new RangeTask(start, middle, body, grain), new RangeTask(middle, end, body, grain));
+            }
+        }
+    }
+
+    /**
+     * Returns the total cost of the edges of the last computed tree
+     * @return the cost of the tree
+     */
+    public long getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Return the tree as a 2D array of Points (see SpanningTreeAlgorithm.getPath)
+     * @return 2D array of points
+     */
+    public Point[][] getPath() {
+        if (minSpanningTree == null)
+            return null;
+        return PrimsMST.getPath(graph, storage, minSpanningTree);
+    }
+
+    /** Set the tree to null.
+     *  Called when the user presses Reset button.
+     */
+    public void resetPath() {
+        minSpanningTree = null;
+    }
+}
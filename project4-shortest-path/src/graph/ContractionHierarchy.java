@@ -0,0 +1,613 @@
+package graph;
+
+/** Class ContractionHierarchy. Answers shortest path queries with contraction
+ *  hierarchies.
+ *
+ *  Preprocessing (done once, in the constructor) contracts the nodes one by one,
+ *  in the order given by a priority (edge difference plus the number of already
+ *  contracted neighbors). Contracting a node v removes it from the remaining
+ *  graph; for every pair of neighbors u, w of v a shortcut edge u - w with the
+ *  cost of u - v - w is added unless a local "witness" search finds a path from
+ *  u to w that avoids v and is not longer. The position of a node in the
+ *  contraction order is its rank.
+ *
+ *  Every shortest path then goes up the ranks and then down again, so a query
+ *  runs a forward search from the origin and a backward search from the
+ *  destination that both only follow edges to nodes of higher rank. The
+ *  shortcuts on the resulting path are unpacked back into edges of the graph.
+ *  Every edge of Graph.loadGraph is added in both directions, so one upward
+ *  graph serves both searches.
+ */
+
+import java.util.*;
+import java.awt.Point;
+
+public class ContractionHierarchy implements ShortestPathAlgorithm {
+    private static final int WITNESS_SETTLE_LIMIT = 500; // max nodes settled by one witness search
+
+    private Graph graph; // stores the graph of CityNode-s and edges connecting them
+    private List<Integer> shortestPath = null; // nodes that are part of the shortest path
+    private int numNodes; // stores the number of nodes in the graph
+
+    // the remaining graph while nodes are being contracted
+    private int[][] adjTarget; // for each node, the neighbors that are not contracted yet
+    private int[][] adjCost; // cost of the edge to each of these neighbors
+    private int[][] adjMiddle; // middle node of each shortcut, -1 for an edge of the graph
+    private int[] adjSize; // number of neighbors stored for each node
+    private int[] deletedNeighbors; // number of contracted neighbors of each node
+    private int numShortcuts; // number of shortcuts added or updated during contraction
+    private int[] pending = new int[48]; // shortcuts found by the last call to findShortcuts: (u, w, cost) triples
+    private int numPending; // number of shortcuts in pending
+
+    // the upward graph in CSR form: the edges of each node to nodes of higher rank
+    private int[] rank; // position of each node in the contraction order
+    private int[] upOffsets; // the upward edges of node v are at upOffsets[v] .. upOffsets[v + 1] - 1
+    private int[] upTargets; // the higher ranked node of each upward edge
+    private int[] upCosts; // the cost of each upward edge
+    private int[] upMiddles; // the contracted node a shortcut bypasses, -1 for an edge of the graph
+
+    // scratch space of the witness searches and the queries; entries are valid
+    // only if their stamp equals the current search number, so nothing is cleared
+    private int[] witnessCost;
+    private int[] witnessStamp;
+    private int[] forwardCost;
+    private int[] backwardCost;
+    private int[] forwardParent;
+    private int[] backwardParent;
+    private int[] forwardStamp;
+    private int[] backwardStamp;
+    private int searchNumber; // number of the current search
+    private LongHeap heap; // heap of the witness searches and of the forward query search
+    private LongHeap backwardHeap; // heap of the backward query search
+    private int numSettled; // number of nodes settled by the last query
+
+    private Dijkstra checker = null; // if not null, every query is checked against Dijkstra's
+
+    /** Constructor. Contracts the graph, which is the expensive one-time step.
+     *
+     * @param graph graph that has already been loaded with Graph.loadGraph
+     */
+    public ContractionHierarchy(Graph graph) {
+        this.graph = graph;
+        this.numNodes = graph.numNodes();
+        this.witnessCost = new int[numNodes];
+        this.witnessStamp = new int[numNodes];
+        this.forwardCost = new int[numNodes];
+        this.backwardCost = new int[numNodes];
+        this.forwardParent = new int[numNodes];
+        this.backwardParent = new int[numNodes];
+        this.forwardStamp = new int[numNodes];
+        this.backwardStamp = new int[numNodes];
+        this.heap = new LongHeap();
+        this.backwardHeap = new LongHeap();
+        preprocess();
+    }
+
+    /**
+     * Orders and contracts all nodes, then builds the upward graph.
+     * Priorities are updated lazily: when the node with the minimum priority is
+     * removed, its priority is recomputed, and if it is no longer the minimum
+     * the node goes back into the heap.
+     */
+    private void preprocess() {
+        int v;
+        int priority;
+        int nextRank = 0;
+        int[][] upT = new int[numNodes][]; // upward edges of each node, collected at contraction time
+        int[][] upC = new int[numNodes][];
+        int[][] upM = new int[numNodes][];
+        MinHeap order = new MinHeap(numNodes);
+
+        initRemainingGraph();
+        rank = new int[numNodes];
+        for (v = 0; v < numNodes; v++) {
+            order.insert(v, priority(v));
+        }
+        while (!order.isEmpty()) {
+            v = order.removeMin();
+            priority = priority(v);
+            if (!order.isEmpty() && priority > order.peekMinCost()) {
+                order.insert(v, priority); // the priority went up, try again later
+                continue;
+            }
+            // the remaining graph has not changed since priority(v), so the shortcuts it found are still needed
+            for (int i = 0; i < numPending; i += 3) {
+                addOrUpdateEdge(pending[i], pending[i + 1], pending[i + 2], v);
+                addOrUpdateEdge(pending[i + 1], pending[i], pending[i + 2], v);
+            }
+            // all remaining neighbors of v are contracted after v, so its edges go upward
+            upT[v] = Arrays.copyOf(adjTarget[v], adjSize[v]);
+            upC[v] = Arrays.copyOf(adjCost[v], adjSize[v]);
+            upM[v] = Arrays.copyOf(adjMiddle[v], adjSize[v]);
+            removeNode(v);
+            rank[v] = nextRank++;
+        }
+        buildUpwardGraph(upT, upC, upM);
+    }
+
+    /**
+     * Copies the CSR arrays of the graph into the growable adjacency lists of
+     * the remaining graph, merging parallel edges and dropping self loops.
+     */
+    private void initRemainingGraph() {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        int[] costs = graph.getCosts();
+        int degree;
+
+        adjTarget = new int[numNodes][];
+        adjCost = new int[numNodes][];
+        adjMiddle = new int[numNodes][];
+        adjSize = new int[numNodes];
+        deletedNeighbors = new int[numNodes];
+        for (int v = 0; v < numNodes; v++) {
+            degree = Math.max(offsets[v + 1] - offsets[v], 1);
+            adjTarget[v] = new int[degree];
+            adjCost[v] = new int[degree];
+            adjMiddle[v] = new int[degree];
+        }
+        for (int v = 0; v < numNodes; v++) {
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                if (targets[e] != v) {
+                    addOrUpdateEdge(v, targets[e], costs[e], -1);
+                }
+            }
+        }
+        numShortcuts = 0;
+    }
+
+    /**
+     * The contraction priority of a node: shortcuts it would add, minus the
+     * edges it would remove, plus its contracted neighbors (so that the
+     * contraction is spread evenly over the graph).
+     * The shortcuts are kept in pending, in case v is contracted next.
+     * @param v id of the node
+     * @return priority of v, smaller is contracted first
+     */
+    private int priority(int v) {
+        return findShortcuts(v) - adjSize[v] + deletedNeighbors[v];
+    }
+
+    /**
+     * Finds the shortcuts needed to contract v and stores them in pending:
+     * for every pair of neighbors u, w a shortcut is needed unless a witness
+     * path from u to w that avoids v costs at most cost(u, v) + cost(v, w).
+     * @param v id of the node to contract
+     * @return the number of shortcuts needed
+     */
+    private int findShortcuts(int v) {
+        int u;
+        int w;
+        int maxCost;
+        int viaCost;
+
+        numPending = 0;
+        for (int i = 0; i < adjSize[v]; i++) {
+            u = adjTarget[v][i];
+            maxCost = -1; // stays -1 if there is no pair left for u; 0 is a real cost
+            for (int j = i + 1; j < adjSize[v]; j++) {
+                maxCost = Math.max(maxCost, adjCost[v][i] + adjCost[v][j]);
+            }
+            if (maxCost < 0) {
+                continue; // no pair left for u
+            }
+            witnessSearch(u, v, maxCost);
+            for (int j = i + 1; j < adjSize[v]; j++) {
+                w = adjTarget[v][j];
+                viaCost = adjCost[v][i] + adjCost[v][j];
+                if (witnessStamp[w] == searchNumber && witnessCost[w] <= viaCost) {
+                    continue; // there is a witness path, no shortcut needed
+                }
+                if (numPending + 3 > pending.length) {
+                    pending = Arrays.copyOf(pending, pending.length * 2);
+                }
+                pending[numPending++] = u;
+                pending[numPending++] = w;
+                pending[numPending++] = viaCost;
+            }
+        }
+        return numPending / 3;
+    }
+
+    /**
+     * Dijkstra's search from the source in the remaining graph without the
+     * excluded node. Paths longer than maxCost are not followed, and the search
+     * gives up after WITNESS_SETTLE_LIMIT nodes; giving up only costs extra shortcuts.
+     * @param source id of the source node
+     * @param excluded id of the node being contracted
+     * @param maxCost the largest cost we need a witness for
+     */
+    private void witnessSearch(int source, int excluded, int maxCost) {
+        int v;
+        int u;
+        int newCost;
+        int settled = 0;
+        long top;
+
+        searchNumber++;
+        heap.clear();
+        witnessCost[source] = 0;
+        witnessStamp[source] = searchNumber;
+        heap.insert(0, source);
+        while (!heap.isEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+            top = heap.removeMin();
+            v = LongHeap.node(top);
+            if (LongHeap.cost(top) > witnessCost[v]) {
+                continue; // stale entry
+            }
+            settled++;
+            for (int i = 0; i < adjSize[v]; i++) {
+                u = adjTarget[v][i];
+                if (u == excluded) {
+                    continue;
+                }
+                newCost = witnessCost[v] + adjCost[v][i];
+                if (newCost > maxCost) {
+                    continue; // too long to be a witness
+                }
+                if (witnessStamp[u] != searchNumber || newCost < witnessCost[u]) {
+                    witnessCost[u] = newCost;
+                    witnessStamp[u] = searchNumber;
+                    heap.insert(newCost, u);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the edge from v to u to the remaining graph, or lowers the cost of
+     * the existing edge if the new one is cheaper
+     * @param v id of the source node
+     * @param u id of the target node
+     * @param cost cost of the edge
+     * @param middle the node the edge bypasses, -1 for an edge of the graph
+     */
+    private void addOrUpdateEdge(int v, int u, int cost, int middle) {
+        for (int i = 0; i < adjSize[v]; i++) {
+            if (adjTarget[v][i] == u) {
+                if (cost < adjCost[v][i]) {
+                    adjCost[v][i] = cost;
+                    adjMiddle[v][i] = middle;
+                    numShortcuts++;
+                }
+                return;
+            }
+        }
+        if (adjSize[v] == adjTarget[v].length) {
+            adjTarget[v] = Arrays.copyOf(adjTarget[v], adjSize[v] * 2);
+            adjCost[v] = Arrays.copyOf(adjCost[v], adjSize[v] * 2);
+            adjMiddle[v] = Arrays.copyOf(adjMiddle[v], adjSize[v] * 2);
+        }
+        adjTarget[v][adjSize[v]] = u;
+        adjCost[v][adjSize[v]] = cost;
+        adjMiddle[v][adjSize[v]] = middle;
+        adjSize[v]++;
+        if (middle != -1) {
+            numShortcuts++;
+        }
+    }
+
+    /**
+     * Removes a contracted node from the adjacency lists of its neighbors
+     * @param v id of the contracted node
+     */
+    private void removeNode(int v) {
+        int u;
+        int last;
+
+        for (int i = 0; i < adjSize[v]; i++) {
+            u = adjTarget[v][i];
+            for (int j = 0; j < adjSize[u]; j++) {
+                if (adjTarget[u][j] == v) {
+                    last = --adjSize[u];
+                    adjTarget[u][j] = adjTarget[u][last];
+                    adjCost[u][j] = adjCost[u][last];
+                    adjMiddle[u][j] = adjMiddle[u][last];
+                    break;
+                }
+            }
+            deletedNeighbors[u]++;
+        }
+        adjTarget[v] = null;
+        adjCost[v] = null;
+        adjMiddle[v] = null;
+        adjSize[v] = 0;
+    }
+
+    /**
+     * Packs the upward edges collected during contraction into CSR arrays
+     * and releases the remaining graph
+     */
+    private void buildUpwardGraph(int[][] upT, int[][] upC, int[][] upM) {
+        int e = 0;
+
+        upOffsets = new int[numNodes + 1];
+        for (int v = 0; v < numNodes; v++) {
+            upOffsets[v + 1] = upOffsets[v] + upT[v].length;
+        }
+        upTargets = new int[upOffsets[numNodes]];
+        upCosts = new int[upOffsets[numNodes]];
+        upMiddles = new int[upOffsets[numNodes]];
+        for (int v = 0; v < numNodes; v++) {
+            System.arraycopy(upT[v], 0, upTargets, e, upT[v].length);
+            System.arraycopy(upC[v], 0, upCosts, e, upC[v].length);
+            System.arraycopy(upM[v], 0, upMiddles, e, upM[v].length);
+            e += upT[v].length;
+        }
+        adjTarget = null;
+        adjCost = null;
+        adjMiddle = null;
+    }
+
+    /**
+     * Returns the shortest path between the origin vertex and the destination vertex.
+     * @param origin source node
+     * @param destination destination node
+     * @return the ArrayList of nodeIds (of nodes on the shortest path),
+     * empty if the destination can not be reached from the origin
+     */
+    public List<Integer> computeShortestPath(CityNode origin, CityNode destination) {
+        int originId = graph.getId(origin);
+        int destId = graph.getId(destination);
+        int meetingNode = search(originId, destId);
+        List<Integer> upwardPath = new ArrayList<>(); // path in the upward graph, with shortcuts
+
+        shortestPath = new ArrayList<>();
+        if (meetingNode != -1) {
+            for (int v = meetingNode; v != -1; v = forwardParent[v]) {
+                upwardPath.add(v);
+            }
+            Collections.reverse(upwardPath);
+            for (int v = backwardParent[meetingNode]; v != -1; v = backwardParent[v]) {
+                upwardPath.add(v);
+            }
+            shortestPath.add(originId);
+            for (int j = 0; j + 1 < upwardPath.size(); j++) {
+                unpack(upwardPath.get(j), upwardPath.get(j + 1), shortestPath);
+            }
+        }
+        if (checker != null) {
+            checkAgainstDijkstra(origin, destination);
+        }
+        return shortestPath;
+    }
+
+    /**
+     * Runs the forward search from the origin and the backward search from the
+     * destination on the upward graph. The searches alternate on the smaller
+     * minimum cost; a search stops once its minimum cost is at least the best
+     * cost of a path through a node settled by both searches.
+     * @param originId node id of the origin
+     * @param destId node id of the destination
+     * @return the node where the shortest path reaches its highest rank, -1 if there is no path
+     */
+    private int search(int originId, int destId) {
+        long bestCost = Long.MAX_VALUE;
+        int meetingNode = -1;
+        boolean forward;
+        LongHeap currHeap;
+        int[] cost;
+        int[] parent;
+        int[] stamp;
+        int[] otherCost;
+        int[] otherStamp;
+        long top;
+        int v;
+        int u;
+        int newCost;
+
+        searchNumber++;
+        numSettled = 0;
+        heap.clear();
+        backwardHeap.clear();
+        forwardCost[originId] = 0;
+        forwardParent[originId] = -1;
+        forwardStamp[originId] = searchNumber;
+        heap.insert(0, originId);
+        backwardCost[destId] = 0;
+        backwardParent[destId] = -1;
+        backwardStamp[destId] = searchNumber;
+        backwardHeap.insert(0, destId);
+
+        while (true) {
+            if (!heap.isEmpty() && LongHeap.cost(heap.peekMin()) >= bestCost) {
+                heap.clear(); // the forward search can not improve the best path
+            }
+            if (!backwardHeap.isEmpty() && LongHeap.cost(backwardHeap.peekMin()) >= bestCost) {
+                backwardHeap.clear();
+            }
+            if (heap.isEmpty() && backwardHeap.isEmpty()) {
+                break;
+            }
+            forward = backwardHeap.isEmpty()
+                    || (!heap.isEmpty() && LongHeap.cost(heap.peekMin()) <= LongHeap.cost(backwardHeap.peekMin()));
+            currHeap = forward ? heap : backwardHeap;
+            cost = forward ? forwardCost : backwardCost;
+            parent = forward ? forwardParent : backwardParent;
+            stamp = forward ? forwardStamp : backwardStamp;
+            otherCost = forward ? backwardCost : forwardCost;
+            otherStamp = forward ? backwardStamp : forwardStamp;
+
+            top = currHeap.removeMin();
+            v = LongHeap.node(top);
+            if (LongHeap.cost(top) > cost[v]) {
+                continue; // stale entry
+            }
+            numSettled++;
+            if (otherStamp[v] == searchNumber && (long) cost[v] + otherCost[v] < bestCost) {
+                bestCost = (long) cost[v] + otherCost[v];
+                meetingNode = v;
+            }
+            for (int e = upOffsets[v]; e < upOffsets[v + 1]; e++) {
+                u = upTargets[e];
+                newCost = cost[v] + upCosts[e];
+                if (stamp[u] != searchNumber || newCost < cost[u]) {
+                    cost[u] = newCost;
+                    parent[u] = v;
+                    stamp[u] = searchNumber;
+                    currHeap.insert(newCost, u);
+                }
+            }
+        }
+        return meetingNode;
+    }
+
+    /**
+     * Appends the nodes of the edge from v to u to the path, replacing every
+     * shortcut by the two edges it stands for. v itself is already on the path.
+     * Uses an explicit stack, since shortcuts can be nested deeply.
+     * @param v id of the first node of the edge
+     * @param u id of the second node of the edge
+     * @param path the path to append to
+     */
+    private void unpack(int v, int u, List<Integer> path) {
+        Deque<int[]> stack = new ArrayDeque<>();
+        int[] edge;
+        int middle;
+
+        stack.push(new int[] {v, u});
+        while (!stack.isEmpty()) {
+            edge = stack.pop();
+            middle = findMiddle(edge[0], edge[1]);
+            if (middle == -1) {
+                path.add(edge[1]);
+            } else {
+                stack.push(new int[] {middle, edge[1]}); // unpacked second
+                stack.push(new int[] {edge[0], middle}); // unpacked first
+            }
+        }
+    }
+
+    /**
+     * Finds the node bypassed by the upward edge between v and u.
+     * The edge is stored with the endpoint of lower rank.
+     * @param v id of one endpoint
+     * @param u id of the other endpoint
+     * @return the middle node of the shortcut, -1 if it is an edge of the graph
+     */
+    private int findMiddle(int v, int u) {
+        int low = (rank[v] < rank[u]) ? v : u;
+        int high = (low == v) ? u : v;
+
+        for (int e = upOffsets[low]; e < upOffsets[low + 1]; e++) {
+            if (upTargets[e] == high) {
+                return upMiddles[e];
+            }
+        }
+        throw new IllegalStateException("No upward edge between nodes " + v + " and " + u);
+    }
+
+    /**
+     * Turns checking every query against Dijkstra's algorithm on or off.
+     * When it is on, computeShortestPath throws an IllegalStateException
+     * if the cost of its path differs from the cost of Dijkstra's path.
+     * @param check true to check every query
+     */
+    public void setCheckAgainstDijkstra(boolean check) {
+        checker = check ? new Dijkstra(graph) : null;
+    }
+
+    /**
+     * Compares the cost of the last computed path with the cost of Dijkstra's path
+     * @param origin source node
+     * @param destination destination node
+     */
+    private void checkAgainstDijkstra(CityNode origin, CityNode destination) {
+        List<Integer> expected = checker.computeShortestPath(origin, destination);
+        int expectedCost = expected.isEmpty() ? -1 : graph.getPathCost(expected);
+        int actualCost = shortestPath.isEmpty() ? -1 : graph.getPathCost(shortestPath);
+        if (expectedCost != actualCost) {
+            throw new IllegalStateException("Contraction hierarchy path from " + origin.getCity() + " to "
+                    + destination.getCity() + " costs " + actualCost + ", Dijkstra's path costs " + expectedCost);
+        }
+    }
+
+    /**
+     * Returns the number of shortcuts added (or improved) during preprocessing
+     * @return number of shortcuts
+     */
+    public int getNumShortcuts() {
+        return numShortcuts;
+    }
+
+    /**
+     * Returns the number of nodes settled by the last call to computeShortestPath,
+     * counting both searches
+     * @return number of settled nodes
+     */
+    public int getNumSettled() {
+        return numSettled;
+    }
+
+    /**
+     * Return the shortest path as a 2D array of Points.
+     * Each element in the array is another array that has 2 Points:
+     * these two points define the beginning and end of a line segment.
+     * @return 2D array of points
+     */
+    public Point[][] getPath() {
+        if (shortestPath == null || shortestPath.isEmpty())
+            return null;
+        return graph.getPath(shortestPath); // delegating this task to the Graph class
+    }
+
+    /** Set the shortestPath to null.
+     *  Called when the user presses Reset button.
+     */
+    public void resetPath() {
+        shortestPath = null;
+    }
+
+    /**
+     * Private inner class: a binary min heap of (cost, nodeId) pairs packed
+     * into longs, with the cost in the high 32 bits so that comparing the longs
+     * compares the costs. There is no decrease-key: a node whose cost goes down
+     * is inserted again and the stale entry is skipped when it is removed.
+     */
+    private static class LongHeap {
+        private long[] heap = new long[16];
+        private int size;
+
+        static int cost(long entry) { return (int) (entry >>> 32); }
+        static int node(long entry) { return (int) entry; }
+
+        void insert(int cost, int nodeId) {
+            int i;
+            long entry = ((long) cost << 32) | (nodeId & 0xffffffffL);
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            i = size++;
+            while (i > 0 && heap[(i - 1) / 2] > entry) {
+                heap[i] = heap[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            heap[i] = entry;
+        }
+
+        long peekMin() { return heap[0]; }
+
+        long removeMin() {
+            long min = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            int child;
+            while ((child = 2 * i + 1) < size) {
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (heap[child] >= last) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return min;
+        }
+
+        boolean isEmpty() { return size == 0; }
+
+        void clear() { size = 0; }
+    }
+}
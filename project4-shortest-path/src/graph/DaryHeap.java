@@ -0,0 +1,133 @@
+package graph;
+
+import java.util.Arrays;
+
+/** An indexed d-ary min-heap over int arrays, for d = 2, 4, 8, ...
+ *
+ *  A wider heap is shallower, so decreaseKey (which sifts up) does fewer
+ *  steps, while removeMin (which sifts down) compares more children per
+ *  level; in Dijkstra's algorithm decreaseKey is the more frequent of the
+ *  two, and the children of a node sit next to each other in memory, so
+ *  4 or 8 children often beat a binary heap. The arity is a power of two,
+ *  so moving between levels is a shift. Nothing is allocated after the
+ *  constructor, and the sifts are loops.
+ */
+public class DaryHeap implements IndexedMinQueue {
+    private int shift; // log2 of the arity
+    private int[] nodes; // node ids in heap order
+    private int[] keys; // key of the node at the same heap index
+    private int[] pos; // index of each node in the heap, -1 if the node is not in the heap
+    private int size; // number of nodes in the heap
+
+    /**
+     * Constructor
+     * @param numNodes number of nodes of the graph
+     * @param arity number of children of each heap entry: 2, 4, 8, ...
+     */
+    public DaryHeap(int numNodes, int arity) {
+        if (arity < 2 || Integer.bitCount(arity) != 1) {
+            throw new IllegalArgumentException("The arity must be a power of two, not " + arity);
+        }
+        shift = Integer.numberOfTrailingZeros(arity);
+        nodes = new int[numNodes];
+        keys = new int[numNodes];
+        pos = new int[numNodes];
+        Arrays.fill(pos, -1);
+    }
+
+    public void insert(int nodeId, int key) {
+        siftUp(size++, nodeId, key);
+    }
+
+    public void decreaseKey(int nodeId, int key) {
+        siftUp(pos[nodeId], nodeId, key);
+    }
+
+    /**
+     * Removes the node with the smallest key
+     * @return id of the removed node, -1 if the heap is empty
+     */
+    public int removeMin() {
+        int min;
+        int last;
+
+        if (size == 0) {
+            return -1;
+        }
+        min = nodes[0];
+        pos[min] = -1;
+        last = --size;
+        if (last > 0) {
+            siftDown(nodes[last], keys[last]);
+        }
+        return min;
+    }
+
+    public boolean contains(int nodeId) {
+        return pos[nodeId] >= 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all nodes; only touches the nodes that are still in the heap
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[nodes[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Moves a node with the given key up from index i to its place in the heap
+     */
+    private void siftUp(int i, int nodeId, int key) {
+        int p;
+        while (i > 0) {
+            p = (i - 1) >>> shift;
+            if (keys[p] <= key) {
+                break;
+            }
+            nodes[i] = nodes[p];
+            keys[i] = keys[p];
+            pos[nodes[i]] = i;
+            i = p;
+        }
+        nodes[i] = nodeId;
+        keys[i] = key;
+        pos[nodeId] = i;
+    }
+
+    /**
+     * Moves a node with the given key down from the root to its place in the heap
+     */
+    private void siftDown(int nodeId, int key) {
+        int i = 0;
+        int first;
+        int last;
+        int best;
+
+        while ((first = (i << shift) + 1) < size) {
+            last = Math.min(first + (1 << shift), size);
+            best = first;
+            for (int c = first + 1; c < last; c++) {
+                if (keys[c] < keys[best]) {
+                    best = c;
+                }
+            }
+            if (keys[best] >= key) {
+                break;
+            }
+            nodes[i] = nodes[best];
+            keys[i] = keys[best];
+            pos[nodes[i]] = i;
+            i = best;
+        }
+        nodes[i] = nodeId;
+        keys[i] = key;
+        pos[nodeId] = i;
+    }
+}
@@ -0,0 +1,177 @@
+package graph;
+
+import java.util.Arrays;
+
+/** Dial's bucket queue: an integer priority queue for graphs whose edge costs
+ *  are small.
+ *
+ *  There is one bucket per key in a window of maxSpread + 1 consecutive keys,
+ *  used circularly, and each bucket is a doubly linked list threaded through
+ *  int arrays indexed by node id. insert, decreaseKey and removal of a node
+ *  are O(1); removeMin scans forward from the smallest key over empty buckets,
+ *  so a whole Dijkstra search costs O(m + D) for a longest distance D.
+ *
+ *  All keys in the queue must lie within maxSpread of the smallest one. In
+ *  Dijkstra's algorithm every queued key is at most the maximum edge cost
+ *  above the last removed key, and in Prim's algorithm every key is an edge
+ *  cost, so maxSpread = maximum edge cost works for both. Unlike a radix heap
+ *  the keys do not have to be monotone: a key below the current minimum
+ *  simply moves the scan position back, which is what Prim's algorithm needs.
+ */
+public class DialQueue implements IndexedMinQueue {
+    private static final int NONE = -1; // end of a bucket list
+
+    private int numBuckets; // maxSpread + 1
+    private int[] heads; // first node of each bucket, NONE if the bucket is empty
+    private int[] next; // next node in the bucket of each node
+    private int[] prev; // previous node in the bucket of each node, NONE for the first one
+    private int[] keys; // key of each node in the queue
+    private boolean[] queued; // whether each node is in the queue
+    private int minKey; // no key in the queue is smaller
+    private int size; // number of nodes in the queue
+
+    /**
+     * Constructor
+     * @param numNodes number of nodes of the graph
+     * @param maxSpread largest difference between two keys in the queue at the same time,
+     * usually the largest edge cost of the graph
+     */
+    public DialQueue(int numNodes, int maxSpread) {
+        if (maxSpread < 0 || maxSpread == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bad key spread " + maxSpread);
+        }
+        numBuckets = maxSpread + 1;
+        heads = new int[numBuckets];
+        next = new int[numNodes];
+        prev = new int[numNodes];
+        keys = new int[numNodes];
+        queued = new boolean[numNodes];
+        Arrays.fill(heads, NONE);
+    }
+
+    /**
+     * Returns the largest edge cost of a graph, the maxSpread to use for it
+     * @param graph the graph
+     * @return the largest edge cost, 0 if the graph has no edges
+     */
+    public static int maxEdgeCost(GraphStorage graph) {
+        int max = 0;
+        for (int e = 0; e < graph.numEdges(); e++) {
+            max = Math.max(max, graph.cost(e));
+        }
+        return max;
+    }
+
+    /**
+     * Adds a node that is not in the queue
+     * @param nodeId id of the node
+     * @param key the priority of the node
+     * @throws IllegalArgumentException if the key is too far above the smallest key in the queue
+     */
+    public void insert(int nodeId, int key) {
+        if (size == 0) {
+            minKey = key;
+        } else if (key < minKey) {
+            checkSpread(key, minKey);
+            minKey = key;
+        } else {
+            checkSpread(minKey, key);
+        }
+        keys[nodeId] = key;
+        queued[nodeId] = true;
+        link(nodeId);
+        size++;
+    }
+
+    /**
+     * Lowers the key of a node that is in the queue
+     * @param nodeId id of the node
+     * @param key the new priority
+     */
+    public void decreaseKey(int nodeId, int key) {
+        unlink(nodeId);
+        keys[nodeId] = key;
+        if (key < minKey) {
+            minKey = key;
+        }
+        link(nodeId);
+    }
+
+    /**
+     * Removes a node with the smallest key
+     * @return id of the removed node, -1 if the queue is empty
+     */
+    public int removeMin() {
+        int bucket;
+        int nodeId;
+
+        if (size == 0) {
+            return -1;
+        }
+        bucket = Math.floorMod(minKey, numBuckets);
+        while (heads[bucket] == NONE) {
+            minKey++;
+            bucket = (bucket + 1 == numBuckets) ? 0 : bucket + 1;
+        }
+        nodeId = heads[bucket];
+        unlink(nodeId);
+        queued[nodeId] = false;
+        size--;
+        return nodeId;
+    }
+
+    public boolean contains(int nodeId) {
+        return queued[nodeId];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all nodes; only touches the buckets that hold nodes
+     */
+    public void clear() {
+        int bucket = Math.floorMod(minKey, numBuckets);
+        int nodeId;
+
+        while (size > 0) {
+            while ((nodeId = heads[bucket]) != NONE) {
+                unlink(nodeId);
+                queued[nodeId] = false;
+                size--;
+            }
+            bucket = (bucket + 1 == numBuckets) ? 0 : bucket + 1;
+        }
+    }
+
+    private void link(int nodeId) {
+        int bucket = Math.floorMod(keys[nodeId], numBuckets);
+        int head = heads[bucket];
+        next[nodeId] = head;
+        prev[nodeId] = NONE;
+        if (head != NONE) {
+            prev[head] = nodeId;
+        }
+        heads[bucket] = nodeId;
+    }
+
+    private void unlink(int nodeId) {
+        int bucket = Math.floorMod(keys[nodeId], numBuckets);
+        if (prev[nodeId] == NONE) {
+            heads[bucket] = next[nodeId];
+        } else {
+            next[prev[nodeId]] = next[nodeId];
+        }
+        if (next[nodeId] != NONE) {
+            prev[next[nodeId]] = prev[nodeId];
+        }
+    }
+
+    private void checkSpread(int low, int high) {
+        if ((long) high - low >= numBuckets) {
+            throw new IllegalArgumentException("Key " + high + " is more than " + (numBuckets - 1)
+                    + " above the smallest key " + low);
+        }
+    }
+}
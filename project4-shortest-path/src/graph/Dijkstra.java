@@ -8,14 +8,15 @@ package graph;
 import java.util.*;
 import java.awt.Point;
 
-public class Dijkstra {
-	private Graph graph; // stores the graph of CityNode-s and edges connecting them
+public class Dijkstra implements ShortestPathAlgorithm {
+	private Graph graph; // stores the graph of CityNode-s and edges connecting them, null for an OffHeapGraph
+    private GraphStorage storage; // the nodes and edges the search runs on; the graph itself if there is one
     private List<Integer> shortestPath = null; // nodes that are part of the shortest path
-	private Vertex[] mst; // the min spanning tree
+    private SearchWorkspace workspace; // reusable cost and parent arrays and heap of the search
+    private int[] pathBuffer; // holds the node ids of the last shortest path
+    private int numSettled; // number of nodes settled by the last search, 0 if it was answered from the cache
+    private ShortestPathTreeCache treeCache = null; // if not null, the trees of past searches are cached here
     private int numNodes; // stores the number of nodes in the graph
-    private Edge[] adjacencyList; // adjacency list; for each vertex stores a linked list of edges
-
-    private MinHeap minHeap; // for testDijkstra method
 
 
     /** Constructor
@@ -26,93 +27,147 @@ public class Dijkstra {
 	public Dijkstra(String filename, Graph graph) {
 	    this.graph = graph;
 		graph.loadGraph(filename);
+		this.storage = graph;
         this.numNodes = graph.numNodes();
-		this.adjacencyList = graph.getAdjacencyList();
-		this.mst = new Vertex[numNodes];
+		this.workspace = new SearchWorkspace(numNodes);
+		this.pathBuffer = new int[numNodes];
 	}
 
+    /** Constructor for a graph that has already been loaded,
+     *  so that several engines can share the same graph.
+     *
+     * @param graph graph
+     */
+    public Dijkstra(Graph graph) {
+        this((GraphStorage) graph);
+    }
+
+    /** Constructor for any graph storage, for example an OffHeapGraph.
+     *  Without a Graph there are no CityNode-s, so only the methods that take
+     *  node ids can be used, unless the storage is a Graph.
+     *
+     * @param storage nodes and edges of the graph
+     */
+    public Dijkstra(GraphStorage storage) {
+        this.graph = storage instanceof Graph ? (Graph) storage : null;
+        this.storage = storage;
+        this.numNodes = storage.numNodes();
+        this.workspace = new SearchWorkspace(numNodes);
+        this.pathBuffer = new int[numNodes];
+    }
+
 	/**
 	 * Returns the shortest path between the origin vertex and the destination vertex.
 	 * The result is stored in shortestPathEdges.
 	 * This function is called from GUIApp, when the user clicks on two cities.
+	 * The search stops as soon as the destination is settled, see getNumSettled.
 	 * @param origin source node
 	 * @param destination destination node
-     * @return the ArrayList of nodeIds (of nodes on the shortest path)
+     * @return the ArrayList of nodeIds (of nodes on the shortest path),
+     * empty if the destination can not be reached from the origin
 	 */
 	public List<Integer> computeShortestPath(CityNode origin, CityNode destination) {
-        Stack<Integer> stackForShortestPath; // holds node id's on the shortest path
-
-        // Run Dijkstra's
-        dijkstra(origin);
-
-        // Compute the nodes on the shortest path by "backtracking" using the table
-        stackForShortestPath = buildStackForShortestPath(origin, destination); // add node ids on the shortest path to stack
-        buildShortestPath(stackForShortestPath); // add node ids from the stack to the shortestPath list in the correct order
-
+        int length; // number of nodes on the shortest path
+
+        // Run Dijkstra's from the origin until the destination is settled,
+        // and copy the nodes on the shortest path by "backtracking" the parents
+        length = computeShortestPath(getNodeId(origin), getNodeId(destination), pathBuffer);
+        shortestPath = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            shortestPath.add(pathBuffer[i]);
+        }
 	    return shortestPath;
     }
 
-    private void dijkstra(CityNode origin) {
-	    int v;
-	    Edge u;
-	    minHeap = new MinHeap(numNodes);
-
-	    // initialize the heap with all vertices
-        // and set the cost of traveling to vertex v to Inf
-        // and set the path of traveling to the given vertex to -1
-        for (v = 0; v < numNodes; v++) {
-            mst[v] = new Vertex(v, Double.POSITIVE_INFINITY, -1, false);
-            minHeap.insert(v, Integer.MAX_VALUE);
-        }
-        mst[graph.getId(origin)].setCost(0);
-        minHeap.reduceKey(graph.getId(origin), (int) mst[graph.getId(origin)].getCost());
-
-        // run dijkstra's
-        while (!minHeap.isEmpty()) {
-            v = minHeap.removeMin();
-
-            for (u = adjacencyList[v].next(); u != null; u = u.next()) {
-                if ((minHeap.isInHeap(u.getNeighbor())) && (u.getCost() + mst[v].getCost() < mst[u.getNeighbor()].getCost())) {
-                    mst[u.getNeighbor()].setCost(u.getCost() + mst[v].getCost());
-                    mst[u.getNeighbor()].setParent(v);
-                    minHeap.reduceKey(u.getNeighbor(), (int) mst[u.getNeighbor()].getCost());
-                }
+    /**
+     * Allocation-free version of computeShortestPath for callers that run many queries:
+     * the search reuses the workspace of this object, and the path is written
+     * into a buffer supplied by the caller.
+     * @param originId node id of the origin
+     * @param destId node id of the destination
+     * @param pathBuffer receives the node ids on the shortest path, origin first;
+     * numNodes entries are always enough
+     * @return number of nodes on the shortest path, 0 if the destination can not be reached
+     */
+    public int computeShortestPath(int originId, int destId, int[] pathBuffer) {
+        int length;
+
+        if (treeCache != null) {
+            length = treeCache.findPath(originId, destId, pathBuffer);
+            if (length >= 0) {
+                numSettled = 0; // answered by backtracking a cached tree
+                return length;
             }
+            // settle the whole graph, so the tree also answers later queries from this origin
+            workspace.dijkstra(storage, originId, -1);
+            treeCache.put(originId, workspace);
+        } else {
+            workspace.dijkstra(storage, originId, destId);
         }
+        numSettled = workspace.getNumSettled();
+        return workspace.copyPath(destId, pathBuffer);
     }
 
+    /**
+     * Sets the priority queue of the search, for example a RadixHeap or a DialQueue
+     * @param queue a queue sized for the number of nodes of the graph,
+     * or null for the built-in binary heap of SearchWorkspace
+     */
+    public void setQueue(IndexedMinQueue queue) {
+        workspace.setQueue(queue);
+    }
 
     /**
-     * Creates a stack to store the nodes on the shortest path
-     * @param origin the origin CityNode
-     * @param destination the destination CityNode
-     * @return the shortest path from origin to destination
+     * Sets the cache of shortest path trees used by computeShortestPath.
+     * With a cache, a query whose origin or destination has a cached tree is
+     * answered without a search; other queries run a full search from the
+     * origin (instead of stopping at the destination) and cache its tree.
+     * The cache is registered with the graph, so Graph.updateEdgeCost repairs
+     * its trees; a cache of a storage that is not a Graph is never repaired.
+     * @param treeCache the cache, or null to turn caching off
      */
-    private Stack<Integer> buildStackForShortestPath(CityNode origin, CityNode destination) {
-        // Compute the nodes on the shortest path by "backtracking" using the table
-        int originId = getNodeId(origin);
-        int destId = getNodeId(destination);
-
-        Stack<Integer> stackShortestPath = new Stack<>(); // stores the nodeIds on the shortest path to the destination vertex
-        int vId = destId;
-        while ((vId != originId)) {
-            stackShortestPath.push(vId);
-            vId = mst[vId].getParent();
+    public void setTreeCache(ShortestPathTreeCache treeCache) {
+        if (graph != null && this.treeCache != null) {
+            graph.removeEdgeCostListener(this.treeCache);
+        }
+        this.treeCache = treeCache;
+        if (graph != null && treeCache != null) {
+            graph.addEdgeCostListener(treeCache);
         }
-        stackShortestPath.push(vId); // add the origin id last
-        return stackShortestPath;
     }
 
     /**
-     * Removes node id's from the stack for the shortest path
-     * @param stackShortestPath the stack with node id's on the shortest path
+     * Returns the cache of shortest path trees
+     * @return the cache, null if caching is off
      */
-    private void buildShortestPath(Stack<Integer> stackShortestPath) {
-        shortestPath = new ArrayList<>();
-        while (!stackShortestPath.empty()) {
-            int nodeId = stackShortestPath.pop();
-            shortestPath.add(nodeId);
+    public ShortestPathTreeCache getTreeCache() {
+        return treeCache;
+    }
+
+    /**
+     * Computes the cost of the shortest path from the origin to every node.
+     * Used by engines that precompute distance tables, such as ALT.
+     * @param originId node id of the origin
+     * @return array of costs indexed by node id, Integer.MAX_VALUE for nodes that can not be reached
+     */
+    public int[] computeCosts(int originId) {
+        int[] result = new int[numNodes];
+
+        workspace.dijkstra(storage, originId, -1);
+        numSettled = workspace.getNumSettled();
+        for (int v = 0; v < numNodes; v++) {
+            result[v] = workspace.getCost(v);
         }
+        return result;
+    }
+
+    /**
+     * Returns the number of nodes settled (removed from the heap) by the last
+     * call to computeShortestPath
+     * @return number of settled nodes
+     */
+    public int getNumSettled() {
+        return numSettled;
     }
 
 
@@ -120,8 +175,8 @@ public class Dijkstra {
      * Print the cost array
      */
     public void printCost() {
-        for (int i = 0; i < mst.length; i++) {
-            System.out.print("[" + i + ", " + mst[i].getCost() + "], ");
+        for (int i = 0; i < numNodes; i++) {
+            System.out.print("[" + i + ", " + (workspace.isReached(i) ? workspace.getCost(i) : Double.POSITIVE_INFINITY) + "], ");
         }
         System.out.println();
     }
@@ -130,8 +185,8 @@ public class Dijkstra {
      * Print the path array
      */
     public void printPath() {
-        for (int i = 0; i < mst.length; i++) {
-            System.out.print("[" + i + ", " + mst[i].getParent() + "], ");
+        for (int i = 0; i < numNodes; i++) {
+            System.out.print("[" + i + ", " + workspace.getParent(i) + "], ");
         }
         System.out.println();
     }
@@ -142,6 +197,9 @@ public class Dijkstra {
      * @return the nodeId of the cityNode
      */
     private int getNodeId(CityNode cityNode) {
+        if (graph == null) {
+            throw new UnsupportedOperationException("The graph has no city names, use node ids");
+        }
         return graph.getId(cityNode);
     }
 
@@ -152,7 +210,7 @@ public class Dijkstra {
      * @return 2D array of points
      */
     public Point[][] getPath() {
-        if (shortestPath == null)
+        if (shortestPath == null || shortestPath.isEmpty())
             return null;
         return graph.getPath(shortestPath); // delegating this task to the Graph class
     }
@@ -164,37 +222,4 @@ public class Dijkstra {
         shortestPath = null;
     }
 
-    /**
-     * Private inner class to represent vertices.
-     * Each vertex object stores a vertex v's nodeId, the cost to travel to v,
-     * and the
-     */
-    private class Vertex {
-        private int nodeId; // the node id for this vertex
-        private double cost; // the cost to add vertex Vk to the tree
-        private int parent; // the lowest cost path to this vertex Vk
-        private boolean known; // whether or not this vertex has been added to the tree
-
-        public Vertex(int nodeId, double cost, int parent, boolean known) {
-            this.nodeId = nodeId;
-            this.cost = cost;
-            this.parent = parent;
-            this.known = known;
-        }
-
-        public int getNodeId() { return this.nodeId; }
-        public void setNodeId(int nodeId) { this.nodeId = nodeId; }
-
-        public double getCost() { return this.cost; }
-        public void setCost(double cost) {
-            this.cost = cost;
-        }
-
-        public int getParent() { return this.parent; }
-        public void setParent(int parent) { this.parent = parent; }
-
-        public boolean isKnown() { return known; }
-        public void setKnown(boolean known) { this.known = known; }
-    }
-
-}
\ No newline at end of file
+}
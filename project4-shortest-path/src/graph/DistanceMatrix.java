@@ -0,0 +1,124 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** Result of MultiSourceShortestPaths: the costs from a set of origins to a set
+ *  of destinations, one int array per row (one row per origin), and optionally
+ *  the parent of every node in the shortest path tree of each origin, also one
+ *  array per row. Keeping the rows apart means the whole matrix may have more
+ *  than 2^31 entries, e.g. parent rows for hundreds of origins of a graph with
+ *  10^7 nodes; only a single row is limited to the size of a Java array.
+ */
+public class DistanceMatrix {
+    public static final int INF = Integer.MAX_VALUE; // cost of a destination that can not be reached
+
+    private int[] originIds; // node id of the origin of each row
+    private int[] destIds; // node id of the destination of each column
+    private int[][] costs; // costs[row][column]
+    private int[][] parents; // parents[row][v] = parent of v in the tree of the origin, or null
+
+    /**
+     * Constructor. The arrays are filled in by MultiSourceShortestPaths.
+     * @param originIds node id of the origin of each row
+     * @param destIds node id of the destination of each column
+     * @param numNodes number of nodes of the graph
+     * @param withParents whether to keep a parent row for every origin
+     */
+    DistanceMatrix(int[] originIds, int[] destIds, int numNodes, boolean withParents) {
+        this.originIds = originIds;
+        this.destIds = destIds;
+        this.costs = new int[originIds.length][destIds.length];
+        this.parents = withParents ? new int[originIds.length][numNodes] : null;
+    }
+
+    /**
+     * Returns the number of origins (rows)
+     * @return number of rows
+     */
+    public int numOrigins() {
+        return originIds.length;
+    }
+
+    /**
+     * Returns the number of destinations (columns)
+     * @return number of columns
+     */
+    public int numDestinations() {
+        return destIds.length;
+    }
+
+    /**
+     * Returns the node id of the origin of a row
+     * @param row index of the row
+     * @return node id
+     */
+    public int getOriginId(int row) {
+        return originIds[row];
+    }
+
+    /**
+     * Returns the node id of the destination of a column
+     * @param column index of the column
+     * @return node id
+     */
+    public int getDestinationId(int column) {
+        return destIds[column];
+    }
+
+    /**
+     * Returns the cost of the shortest path from an origin to a destination
+     * @param row index of the origin
+     * @param column index of the destination
+     * @return the cost, INF if the destination can not be reached
+     */
+    public int getCost(int row, int column) {
+        return costs[row][column];
+    }
+
+    /**
+     * Whether the parent rows were computed
+     * @return true if getParent and getPath can be used
+     */
+    public boolean hasParents() {
+        return parents != null;
+    }
+
+    /**
+     * Returns the previous node on the shortest path from the origin of a row to a node
+     * @param row index of the origin
+     * @param nodeId id of any node of the graph
+     * @return the parent, -1 for the origin and for nodes that can not be reached
+     * @throws IllegalStateException if the matrix was computed without parents
+     */
+    public int getParent(int row, int nodeId) {
+        if (parents == null) {
+            throw new IllegalStateException("The matrix was computed without parents");
+        }
+        return parents[row][nodeId];
+    }
+
+    /**
+     * Rebuilds the shortest path from the origin of a row to any node
+     * @param row index of the origin
+     * @param nodeId id of the last node of the path
+     * @return the list of nodeIds on the path, empty if the node can not be reached
+     * @throws IllegalStateException if the matrix was computed without parents
+     */
+    public List<Integer> getPath(int row, int nodeId) {
+        List<Integer> path = new ArrayList<>();
+        if (nodeId != originIds[row] && getParent(row, nodeId) == -1) {
+            return path; // not reached
+        }
+        for (int v = nodeId; v != -1; v = getParent(row, v)) {
+            path.add(v);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    // Filled in by MultiSourceShortestPaths; every row is written by one task only.
+    void setCost(int row, int column, int cost) { costs[row][column] = cost; }
+    void setParent(int row, int nodeId, int parent) { parents[row][nodeId] = parent; }
+}
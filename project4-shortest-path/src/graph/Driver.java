@@ -13,10 +13,28 @@ public class Driver {
         // Create an instance of the Dijkstra class
         Dijkstra dijkstra = new Dijkstra("USA.txt", graph); // runs dijkstra's to compute the minimum spanning tree
 
+        // Pick the engine that answers the queries: "bidirectional" runs the bidirectional search,
+        // "astar" runs A* guided by the map locations of the cities,
+        // "ch" preprocesses the graph into a contraction hierarchy,
+        // "alt" runs A* with landmarks (the second argument is the number of landmarks),
+        // "yen" also shows alternative routes (the second argument is the number of routes)
+        ShortestPathAlgorithm algo = dijkstra;
+        if (args.length > 0 && args[0].equals("bidirectional")) {
+            algo = new BidirectionalDijkstra(graph);
+        } else if (args.length > 0 && args[0].equals("astar")) {
+            algo = new AStar(graph);
+        } else if (args.length > 0 && args[0].equals("ch")) {
+            algo = new ContractionHierarchy(graph);
+        } else if (args.length > 0 && args[0].equals("alt")) {
+            algo = new ALT(graph, args.length > 1 ? Integer.parseInt(args[1]) : 4);
+        } else if (args.length > 0 && args[0].equals("yen")) {
+            algo = new KShortestPaths(graph, args.length > 1 ? Integer.parseInt(args[1]) : 3);
+        }
+
 //        PrimsMST prims = new PrimsMST("USA.txt", primGraph); // runs prim's algorithm to find the minimum spanning tree
 
         // Create a graphical user interface and wait for user to click on two cities:
-        GUIApp app = new GUIApp(dijkstra, graph); // test dijkstra's
+        GUIApp app = new GUIApp(algo, graph); // test dijkstra's
 //        PrimGUIApp primApp = new PrimGUIApp(prims, primGraph); // test prim's
 
 
@@ -0,0 +1,636 @@
+package graph;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Class DynamicMST. Keeps a minimum spanning forest up to date while edges
+ *  are added, removed or change cost, without recomputing it.
+ *
+ *  The forest is stored in a link-cut tree (Sleator and Tarjan), which can
+ *  link two trees, cut an edge, tell whether two nodes are connected, and
+ *  find the most expensive edge on the path between two nodes, each in
+ *  amortized O(log n). Edge costs live on extra link-cut nodes, one per
+ *  edge, placed between the ends of the edge: node ids 0 .. numNodes - 1 are
+ *  the nodes of the graph, and numNodes + i is edge i.
+ *
+ *  By the cycle property an edge (u, v) belongs in the forest if u and v are
+ *  not connected, or if it is cheaper than the most expensive edge on the
+ *  path from u to v, which it then replaces. That handles added edges and
+ *  cheaper edges in O(log n). When a tree edge gets more expensive or is
+ *  removed, it is cut and the cheapest edge that reconnects the two halves
+ *  takes its place. To find it, both halves are searched at the same time,
+ *  one node at a time, until the smaller one has been searched completely;
+ *  then the edges of the smaller half are scanned for the cheapest one that
+ *  leaves it. Such an update costs time proportional to the edges of the
+ *  smaller half, instead of a full run of Prim.
+ *
+ *  The initial forest is built with Kruskal's algorithm. Every edge of the
+ *  graph gets an id, and so does every edge added later; edgeId finds the id
+ *  of the edge between two nodes. A removed edge is unlinked from the edge
+ *  lists of its ends, so searches never scan it again. The splay trees are
+ *  arrays indexed by link-cut node id, and every operation is a loop, so
+ *  deep trees do not overflow the stack.
+ */
+public class DynamicMST implements SpanningTreeAlgorithm {
+    private static final int NONE = -1; // no link-cut node
+
+    private Graph graph; // the graph of CityNode-s, null for an OffHeapGraph
+    private GraphStorage storage; // the nodes of the graph, for their locations
+    private int numNodes; // number of nodes in the graph
+
+    private int numEdges; // number of edge ids handed out
+    private int[] from; // one end of each edge
+    private int[] to; // the other end of each edge
+    private int[] cost; // cost of each edge
+    private boolean[] inForest; // whether each edge is in the forest
+    private boolean[] removed; // whether each edge has been removed
+    private int numForestEdges; // number of edges in the forest
+    private long totalCost; // total cost of the edges in the forest
+
+    // the link-cut tree: every node is in a splay tree of one preferred path
+    private int[] left; // left child in the splay tree (the part of the path closer to the root)
+    private int[] right; // right child in the splay tree
+    private int[] parent; // splay parent, or the path parent for the root of a splay tree
+    private boolean[] flipped; // whether the subtree has to be mirrored (pending evert)
+    private int[] value; // cost of an edge node, Integer.MIN_VALUE for a graph node
+    private int[] maxNode; // node of largest value in the splay subtree
+
+    private int[] pushStack; // scratch space for pushing the flips down before a splay
+
+    // the edges at each node, for searching the halves of a cut tree
+    private int[] firstHalf; // first half-edge of each node, NONE if it has none; half-edge 2i + s is edge i seen from end s
+    private int[] nextHalf; // next half-edge of the same node
+    private int[] queueA; // nodes found on the side of one end of the cut edge
+    private int[] queueB; // nodes found on the side of the other end
+    private int[] mark; // the search that found each node: markA, markB or older
+    private int markA; // mark of the current search from one end, always even
+
+    /**
+     * Constructor. Builds the minimum spanning forest of the graph.
+     * @param storage nodes and edges of the graph, for example a Graph or an OffHeapGraph
+     */
+    public DynamicMST(GraphStorage storage) {
+        EdgeList edges = EdgeList.of(storage);
+
+        this.graph = storage instanceof Graph ? (Graph) storage : null;
+        this.storage = storage;
+        this.numNodes = storage.numNodes();
+        this.firstHalf = new int[numNodes];
+        this.queueA = new int[numNodes];
+        this.queueB = new int[numNodes];
+        this.mark = new int[numNodes];
+        Arrays.fill(firstHalf, NONE);
+        allocate(Math.max(16, edges.size));
+        Arrays.fill(value, 0, numNodes, Integer.MIN_VALUE);
+        for (int v = 0; v < numNodes; v++) {
+            maxNode[v] = v;
+        }
+        for (int i = 0; i < edges.size; i++) {
+            newEdge(edges.from[i], edges.to[i], edges.cost[i]);
+        }
+        kruskal(edges);
+    }
+
+    /**
+     * Links the edges of the minimum spanning forest, found with Kruskal's algorithm
+     */
+    private void kruskal(EdgeList edges) {
+        long[] sorted = new long[edges.size];
+        int[] root = new int[numNodes]; // union-find parent
+        int a;
+        int b;
+
+        for (int i = 0; i < edges.size; i++) {
+            sorted[i] = edges.key(i);
+        }
+        Arrays.parallelSort(sorted);
+        for (int v = 0; v < numNodes; v++) {
+            root[v] = v;
+        }
+        for (int k = 0; k < edges.size && numForestEdges < numNodes - 1; k++) {
+            int i = (int) sorted[k];
+            for (a = edges.from[i]; root[a] != a; a = root[a]) {
+                root[a] = root[root[a]];
+            }
+            for (b = edges.to[i]; root[b] != b; b = root[b]) {
+                root[b] = root[root[b]];
+            }
+            if (a != b) {
+                root[a] = b;
+                linkEdge(i);
+            }
+        }
+    }
+
+    /**
+     * Adds an edge to the graph, and to the forest if it belongs there
+     * @param u one end of the edge
+     * @param v the other end of the edge
+     * @param edgeCost cost of the edge
+     * @return the id of the new edge
+     */
+    public int addEdge(int u, int v, int edgeCost) {
+        checkNode(u);
+        checkNode(v);
+        int id = newEdge(u, v, edgeCost);
+        offer(id);
+        return id;
+    }
+
+    /**
+     * Returns the id of the edge between two nodes, for setCost, removeEdge and the other
+     * methods that take an edge id. If there are several, the one added last is returned.
+     * @param u one end of the edge
+     * @param v the other end of the edge
+     * @return the id of the edge, -1 if there is no edge between u and v
+     */
+    public int edgeId(int u, int v) {
+        checkNode(u);
+        checkNode(v);
+        for (int h = firstHalf[u]; h != NONE; h = nextHalf[h]) {
+            int i = h >> 1;
+            if ((((h & 1) == 0) ? to[i] : from[i]) == v) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Changes the cost of an edge and updates the forest
+     * @param edgeId id of the edge
+     * @param newCost the new cost
+     */
+    public void setCost(int edgeId, int newCost) {
+        int oldCost;
+
+        checkEdge(edgeId);
+        oldCost = cost[edgeId];
+        if (!inForest[edgeId]) {
+            cost[edgeId] = newCost;
+            if (newCost < oldCost) {
+                offer(edgeId); // it may now beat the most expensive edge of its cycle
+            }
+        } else if (newCost <= oldCost) {
+            // a tree edge that gets cheaper stays in the tree
+            access(numNodes + edgeId);
+            value[numNodes + edgeId] = newCost;
+            update(numNodes + edgeId);
+            cost[edgeId] = newCost;
+            totalCost += (long) newCost - oldCost;
+        } else {
+            cutEdge(edgeId);
+            cost[edgeId] = newCost;
+            reconnect(edgeId);
+        }
+    }
+
+    /**
+     * Removes an edge from the graph and updates the forest
+     * @param edgeId id of the edge
+     */
+    public void removeEdge(int edgeId) {
+        checkEdge(edgeId);
+        removed[edgeId] = true;
+        unlinkHalf(from[edgeId], 2 * edgeId);
+        unlinkHalf(to[edgeId], 2 * edgeId + 1);
+        if (inForest[edgeId]) {
+            cutEdge(edgeId);
+            reconnect(edgeId);
+        }
+    }
+
+    /**
+     * Returns the cost of an edge
+     * @param edgeId id of the edge
+     * @return the cost
+     */
+    public int getCost(int edgeId) {
+        checkEdge(edgeId);
+        return cost[edgeId];
+    }
+
+    /**
+     * Whether an edge is in the minimum spanning forest
+     * @param edgeId id of the edge
+     * @return true if the edge is in the forest
+     */
+    public boolean isInForest(int edgeId) {
+        checkEdge(edgeId);
+        return inForest[edgeId];
+    }
+
+    /**
+     * Whether two nodes are in the same tree of the forest (the same component of the graph)
+     * @param u a node
+     * @param v another node
+     * @return true if there is a path between u and v
+     */
+    public boolean connected(int u, int v) {
+        checkNode(u);
+        checkNode(v);
+        return u == v || findRoot(u) == findRoot(v);
+    }
+
+    /**
+     * Returns the total cost of the edges in the forest
+     * @return the cost of the forest
+     */
+    public long getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Returns the number of edges in the forest: numNodes minus the number of components
+     * @return number of forest edges
+     */
+    public int getNumForestEdges() {
+        return numForestEdges;
+    }
+
+    /**
+     * Returns the edges of the current minimum spanning forest
+     * @return the edges of the forest
+     */
+    public List<PrimsMST.Edges> computeShortestPath() {
+        List<PrimsMST.Edges> forest = new ArrayList<>(numForestEdges);
+        for (int i = 0; i < numEdges; i++) {
+            if (inForest[i]) {
+                forest.add(new PrimsMST.Edges(from[i], to[i]));
+            }
+        }
+        return forest;
+    }
+
+    /**
+     * Return the forest as a 2D array of Points (see SpanningTreeAlgorithm.getPath)
+     * @return 2D array of points
+     */
+    public Point[][] getPath() {
+        return PrimsMST.getPath(graph, storage, computeShortestPath());
+    }
+
+    /** The forest is always up to date, so there is nothing to forget. */
+    public void resetPath() {
+    }
+
+    /**
+     * Adds an edge that is not in the forest to it if that makes the forest cheaper:
+     * if its ends are not connected, or if it is cheaper than the most expensive
+     * edge on the path between them, which then leaves the forest
+     */
+    private void offer(int edgeId) {
+        int u = from[edgeId];
+        int v = to[edgeId];
+        int heaviest;
+
+        if (u == v) {
+            return; // a self-loop is never in the forest
+        }
+        evert(u);
+        if (findRoot(v) != u) {
+            linkEdge(edgeId);
+            return;
+        }
+        evert(u); // findRoot splayed v's root, make u the root again before looking at the path
+        access(v);
+        heaviest = maxNode[v];
+        if (value[heaviest] > cost[edgeId]) {
+            cutEdge(heaviest - numNodes);
+            linkEdge(edgeId);
+        }
+    }
+
+    /**
+     * After a forest edge was cut, links the cheapest edge that joins the two
+     * halves again, if there is one. The halves are searched from the two ends
+     * of the cut edge in turns, so the search stops after twice the size of
+     * the smaller half.
+     * @param cut the edge that was cut; it may be picked again if it is still in the graph
+     */
+    private void reconnect(int cut) {
+        int headA = 0;
+        int tailA = 0;
+        int headB = 0;
+        int tailB = 0;
+        int side;
+        int[] queue;
+        int size;
+        int best = NONE;
+
+        markA += 2;
+        if (markA < 0) { // the marks wrapped around
+            Arrays.fill(mark, 0);
+            markA = 2;
+        }
+        queueA[tailA++] = from[cut];
+        mark[from[cut]] = markA;
+        queueB[tailB++] = to[cut];
+        mark[to[cut]] = markA + 1;
+        while (headA < tailA && headB < tailB) {
+            tailA = visit(queueA[headA++], queueA, tailA, markA);
+            tailB = visit(queueB[headB++], queueB, tailB, markA + 1);
+        }
+        if (headA == tailA) {
+            side = markA;
+            queue = queueA;
+            size = tailA;
+        } else {
+            side = markA + 1;
+            queue = queueB;
+            size = tailB;
+        }
+        for (int k = 0; k < size; k++) { // the cheapest edge that leaves the completed half
+            for (int h = firstHalf[queue[k]]; h != NONE; h = nextHalf[h]) {
+                int i = h >> 1;
+                int other = ((h & 1) == 0) ? to[i] : from[i];
+                if (!inForest[i] && mark[other] != side && (best == NONE || cost[i] < cost[best])) {
+                    best = i;
+                }
+            }
+        }
+        if (best != NONE) {
+            linkEdge(best);
+        }
+    }
+
+    /**
+     * Adds the forest neighbors of v that have not been found yet to a search queue
+     * @return the new tail of the queue
+     */
+    private int visit(int v, int[] queue, int tail, int searchMark) {
+        for (int h = firstHalf[v]; h != NONE; h = nextHalf[h]) {
+            int i = h >> 1;
+            if (inForest[i]) {
+                int other = ((h & 1) == 0) ? to[i] : from[i];
+                if (mark[other] != searchMark) {
+                    mark[other] = searchMark;
+                    queue[tail++] = other;
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Removes a half-edge from the edge list of its node
+     */
+    private void unlinkHalf(int v, int half) {
+        if (firstHalf[v] == half) {
+            firstHalf[v] = nextHalf[half];
+            return;
+        }
+        for (int h = firstHalf[v]; h != NONE; h = nextHalf[h]) {
+            if (nextHalf[h] == half) {
+                nextHalf[h] = nextHalf[half];
+                return;
+            }
+        }
+    }
+
+    private int newEdge(int u, int v, int edgeCost) {
+        int id = numEdges;
+        int node;
+
+        if (numNodes + id == value.length) {
+            allocate(2 * Math.max(numEdges, 8));
+        }
+        numEdges++;
+        from[id] = u;
+        to[id] = v;
+        cost[id] = edgeCost;
+        nextHalf[2 * id] = firstHalf[u];
+        firstHalf[u] = 2 * id;
+        nextHalf[2 * id + 1] = firstHalf[v];
+        firstHalf[v] = 2 * id + 1;
+        node = numNodes + id;
+        value[node] = edgeCost;
+        maxNode[node] = node;
+        left[node] = NONE;
+        right[node] = NONE;
+        parent[node] = NONE;
+        return id;
+    }
+
+    /**
+     * Sizes (or grows) all arrays for the given number of edges
+     */
+    private void allocate(int edgeCapacity) {
+        int oldNodes = (value == null) ? 0 : value.length;
+        int nodes = numNodes + edgeCapacity;
+
+        from = (from == null) ? new int[edgeCapacity] : Arrays.copyOf(from, edgeCapacity);
+        to = (to == null) ? new int[edgeCapacity] : Arrays.copyOf(to, edgeCapacity);
+        cost = (cost == null) ? new int[edgeCapacity] : Arrays.copyOf(cost, edgeCapacity);
+        inForest = (inForest == null) ? new boolean[edgeCapacity] : Arrays.copyOf(inForest, edgeCapacity);
+        removed = (removed == null) ? new boolean[edgeCapacity] : Arrays.copyOf(removed, edgeCapacity);
+        nextHalf = (nextHalf == null) ? new int[2 * edgeCapacity] : Arrays.copyOf(nextHalf, 2 * edgeCapacity);
+        left = (left == null) ? new int[nodes] : Arrays.copyOf(left, nodes);
+        right = (right == null) ? new int[nodes] : Arrays.copyOf(right, nodes);
+        parent = (parent == null) ? new int[nodes] : Arrays.copyOf(parent, nodes);
+        flipped = (flipped == null) ? new boolean[nodes] : Arrays.copyOf(flipped, nodes);
+        value = (value == null) ? new int[nodes] : Arrays.copyOf(value, nodes);
+        maxNode = (maxNode == null) ? new int[nodes] : Arrays.copyOf(maxNode, nodes);
+        pushStack = new int[nodes];
+        Arrays.fill(left, oldNodes, nodes, NONE);
+        Arrays.fill(right, oldNodes, nodes, NONE);
+        Arrays.fill(parent, oldNodes, nodes, NONE);
+    }
+
+    /**
+     * Puts an edge into the forest: its node is linked between its two ends
+     */
+    private void linkEdge(int edgeId) {
+        int node = numNodes + edgeId;
+        access(node); // the node is alone in its tree; its cost may have changed while it was out
+        value[node] = cost[edgeId];
+        update(node);
+        link(from[edgeId], node);
+        link(node, to[edgeId]);
+        inForest[edgeId] = true;
+        numForestEdges++;
+        totalCost += cost[edgeId];
+    }
+
+    /**
+     * Takes an edge out of the forest, which splits its tree in two
+     */
+    private void cutEdge(int edgeId) {
+        int node = numNodes + edgeId;
+        cut(from[edgeId], node);
+        cut(node, to[edgeId]);
+        inForest[edgeId] = false;
+        numForestEdges--;
+        totalCost -= cost[edgeId];
+    }
+
+    private void checkNode(int v) {
+        if (v < 0 || v >= numNodes) {
+            throw new IllegalArgumentException("No node " + v);
+        }
+    }
+
+    private void checkEdge(int edgeId) {
+        if (edgeId < 0 || edgeId >= numEdges || removed[edgeId]) {
+            throw new IllegalArgumentException("No edge " + edgeId);
+        }
+    }
+
+    // Link-cut tree operations
+
+    /**
+     * Whether x is the root of its splay tree
+     */
+    private boolean isSplayRoot(int x) {
+        int p = parent[x];
+        return p == NONE || (left[p] != x && right[p] != x);
+    }
+
+    /**
+     * Applies a pending flip of x to its children
+     */
+    private void push(int x) {
+        if (flipped[x]) {
+            int t = left[x];
+            left[x] = right[x];
+            right[x] = t;
+            if (left[x] != NONE) {
+                flipped[left[x]] ^= true;
+            }
+            if (right[x] != NONE) {
+                flipped[right[x]] ^= true;
+            }
+            flipped[x] = false;
+        }
+    }
+
+    /**
+     * Recomputes the node of largest value in the splay subtree of x
+     */
+    private void update(int x) {
+        int best = x;
+        if (left[x] != NONE && value[maxNode[left[x]]] > value[best]) {
+            best = maxNode[left[x]];
+        }
+        if (right[x] != NONE && value[maxNode[right[x]]] > value[best]) {
+            best = maxNode[right[x]];
+        }
+        maxNode[x] = best;
+    }
+
+    /**
+     * Rotates x above its parent
+     */
+    private void rotate(int x) {
+        int p = parent[x];
+        int g = parent[p];
+
+        if (!isSplayRoot(p)) {
+            if (left[g] == p) {
+                left[g] = x;
+            } else {
+                right[g] = x;
+            }
+        }
+        parent[x] = g;
+        if (left[p] == x) {
+            left[p] = right[x];
+            if (right[x] != NONE) {
+                parent[right[x]] = p;
+            }
+            right[x] = p;
+        } else {
+            right[p] = left[x];
+            if (left[x] != NONE) {
+                parent[left[x]] = p;
+            }
+            left[x] = p;
+        }
+        parent[p] = x;
+        update(p);
+        update(x);
+    }
+
+    /**
+     * Makes x the root of its splay tree
+     */
+    private void splay(int x) {
+        int top = 0;
+        int y = x;
+
+        pushStack[top++] = y; // flips are pushed down from the splay root to x first
+        while (!isSplayRoot(y)) {
+            y = parent[y];
+            pushStack[top++] = y;
+        }
+        while (top > 0) {
+            push(pushStack[--top]);
+        }
+        while (!isSplayRoot(x)) {
+            int p = parent[x];
+            if (!isSplayRoot(p)) {
+                int g = parent[p];
+                rotate((left[g] == p) == (left[p] == x) ? p : x); // zig-zig rotates the parent first
+            }
+            rotate(x);
+        }
+    }
+
+    /**
+     * Makes the path from the root of the tree to x preferred, with x at its end,
+     * and x the root of the splay tree of that path
+     */
+    private void access(int x) {
+        int last = NONE;
+        for (int y = x; y != NONE; y = parent[y]) {
+            splay(y);
+            right[y] = last;
+            update(y);
+            last = y;
+        }
+        splay(x);
+    }
+
+    /**
+     * Makes x the root of its tree
+     */
+    private void evert(int x) {
+        access(x);
+        flipped[x] ^= true;
+    }
+
+    /**
+     * Returns the root of the tree of x
+     */
+    private int findRoot(int x) {
+        access(x);
+        push(x);
+        while (left[x] != NONE) {
+            x = left[x];
+            push(x);
+        }
+        splay(x);
+        return x;
+    }
+
+    /**
+     * Links the trees of x and y with an edge between them; they must be in different trees
+     */
+    private void link(int x, int y) {
+        evert(x);
+        parent[x] = y;
+    }
+
+    /**
+     * Removes the link between x and y, which must be neighbors in their tree
+     */
+    private void cut(int x, int y) {
+        evert(x);
+        access(y); // the path is now x, y, so x is the left child of y
+        left[y] = NONE;
+        parent[x] = NONE;
+        update(y);
+    }
+}
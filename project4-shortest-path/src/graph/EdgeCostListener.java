@@ -0,0 +1,18 @@
+package graph;
+
+/** Receives the edge cost changes of a Graph, see Graph.updateEdgeCost.
+ *  ShortestPathTreeCache implements it to repair its cached trees instead of
+ *  dropping them; Dijkstra.setTreeCache registers the cache with the graph.
+ */
+public interface EdgeCostListener {
+    /**
+     * Called after the cost of the edge between two nodes has changed in both directions.
+     * The graph already holds the new cost when this is called.
+     * @param graph the graph that changed
+     * @param nodeId1 id of one end of the edge
+     * @param nodeId2 id of the other end of the edge
+     * @param oldCost the cost before the change
+     * @param newCost the cost after the change
+     */
+    void edgeCostChanged(GraphStorage graph, int nodeId1, int nodeId2, int oldCost, int newCost);
+}
@@ -0,0 +1,66 @@
+package graph;
+
+/** The undirected edges of a graph as three parallel arrays, each edge once
+ *  (the CSR form stores every edge in both directions). Edge i joins from[i]
+ *  and to[i], with from[i] < to[i], at cost cost[i]. Self-loops are left out.
+ *  Used by the MST engines that work on edges rather than on nodes.
+ */
+final class EdgeList {
+    final int size; // number of edges
+    final int[] from; // smaller node id of each edge
+    final int[] to; // larger node id of each edge
+    final int[] cost; // cost of each edge
+
+    private EdgeList(int size) {
+        this.size = size;
+        this.from = new int[size];
+        this.to = new int[size];
+        this.cost = new int[size];
+    }
+
+    /**
+     * Collects the edges of a graph
+     * @param graph the graph
+     * @return its edges, in the order of their smaller node id
+     */
+    static EdgeList of(GraphStorage graph) {
+        int numNodes = graph.numNodes();
+        int count = 0;
+        int end;
+        EdgeList edges;
+
+        for (int v = 0; v < numNodes; v++) { // first count, so the arrays are allocated once
+            end = graph.firstEdge(v + 1);
+            for (int e = graph.firstEdge(v); e < end; e++) {
+                if (v < graph.target(e)) {
+                    count++;
+                }
+            }
+        }
+        edges = new EdgeList(count);
+        count = 0;
+        for (int v = 0; v < numNodes; v++) {
+            end = graph.firstEdge(v + 1);
+            for (int e = graph.firstEdge(v); e < end; e++) {
+                int u = graph.target(e);
+                if (v < u) {
+                    edges.from[count] = v;
+                    edges.to[count] = u;
+                    edges.cost[count] = graph.cost(e);
+                    count++;
+                }
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Returns a sort key of an edge that orders edges by cost, and equal costs by index,
+     * so that no two edges have the same key
+     * @param i index of the edge
+     * @return the key
+     */
+    long key(int i) {
+        return ((long) cost[i] << 32) | i;
+    }
+}
@@ -11,65 +11,67 @@ import java.util.*;
 import java.io.*;
 import java.awt.Point;
 
-public class Graph {
+public class Graph implements GraphStorage {
     public final int EPS_DIST = 5;
 
     private CityNode[] nodes; // nodes of the graph
 	private int numNodes;     // total number of nodes
 	private int numEdges; // total number of edges
 	private Edge[] adjacencyList; // adjacency list; for each vertex stores a linked list of edges
+	private int[] offsets; // CSR: the edges of node v are stored at indices offsets[v] .. offsets[v + 1] - 1
+	private int[] targets; // CSR: the neighbor id ("destination" vertex) of each edge
+	private int[] costs; // CSR: the cost of each edge
     // Your HashTable that maps city names to node ids should probably be here as well
 	private HashTable hashTable;
+	private String loadedFrom; // name of the file the graph was loaded from, null if it was not loaded
+	private List<EdgeCostListener> edgeCostListeners = new ArrayList<>(); // told about every updateEdgeCost
 
 	/**
 	 * Read graph info from the given file, and create nodes and edges of
 	 * the graph.
+	 * The graph is loaded from the binary snapshot of the file (see
+	 * BinaryGraphFile) when the snapshot is up to date; otherwise the text
+	 * file is parsed and the snapshot is written for the next run.
+	 * The snapshot counts as up to date when the length and the last modified
+	 * time of the text file match; an edit that keeps both is only noticed
+	 * by loadGraph(filename, true).
+	 * Loading replaces the contents of the graph; loading the same file into
+	 * the same graph again does nothing.
 	 *
 	 * @param filename name of the file that has nodes and edges
 	 */
 	public void loadGraph(String filename) {
-		String[] tmp; // stores a tmp array of the split string for each line in the file. The line is split by whitespace
-		boolean isNode;  // returns true if we are reading a node, false if we are reading an edge
-		String cityName; // stores the city name
-		double x; // stores the x coordinate
-		double y; // stores the y coordinate
-		int nodeId1; // stores the node id of the first city in an arc
-		int nodeId2; // stores the node id of the second city in an arc
-		int cost; // stores the cost of an edge
-		Edge edge1; // the edge for the first city
-		Edge edge2; // the edge for the second city
-		Edge vertex; // the vertex vi in the adjacency list
-
-		try (FileReader file = new FileReader(filename)) {
-			BufferedReader br = new BufferedReader(file);
-			String line;
-			line = br.readLine();
-			while (line != null) {
-				tmp = line.split("\\s+");
-				if (tmp.length >= 2) {
-					isNode = Character.isDigit(tmp[1].charAt(0)); // returns true if we are reading a node, false if reading an edge
-					if (isNode) {
-						cityName = tmp[0];
-						x = Double.parseDouble(tmp[1]);
-						y = Double.parseDouble(tmp[2]);
-						CityNode node = new CityNode(cityName, x, y); // creates CityNode
-						addNode(node); // add node to the array of nodes
-
-					}
-					else {
-						nodeId1 = hashTable.find(tmp[0]); // finds the nodeId for the city using the hash table
-						nodeId2 = hashTable.find(tmp[1]);
-						cost = Integer.parseInt(tmp[2]);
-
-						edge1 = new Edge(nodeId1, cost);
-						edge2 = new Edge(nodeId2, cost);
-
-						addEdge(nodeId1, edge2);
-						addEdge(nodeId2, edge1);
-					}
+		loadGraph(filename, false);
+	}
+
+	/**
+	 * Read graph info from the given file, like loadGraph(String).
+	 * With a deep check the snapshot is only used if the CRC32 of the text
+	 * file and of the snapshot match the ones it recorded, which reads both
+	 * files in full; the file is then loaded again even if the graph was
+	 * already loaded from it.
+	 *
+	 * @param filename name of the file that has nodes and edges
+	 * @param deepCheck whether to compare the checksums of the text file and of the snapshot
+	 */
+	public void loadGraph(String filename, boolean deepCheck) {
+		GraphBuilder builder; // holds the nodes and arcs read from the text file
+
+		if (!deepCheck && filename.equals(loadedFrom)) {
+			return;
+		}
+		try {
+			if (!BinaryGraphFile.load(filename, this, deepCheck)) {
+				builder = GraphFileParser.parse(filename); // memory-maps the file and reads nodes and arcs
+				builder.buildInto(this);
+				try {
+					BinaryGraphFile.save(filename, this, builder.getXCoords(), builder.getYCoords());
+				}
+				catch (IOException e) {
+					System.out.println("Could not write the graph snapshot: " + e.getMessage());
 				}
-				line = br.readLine();
 			}
+			loadedFrom = filename;
 		}
 		catch (IOException e) {
 			System.out.println("No such file");
@@ -77,16 +79,84 @@ public class Graph {
 		}
 	}
 
+	/**
+	 * Replaces the contents of the graph with the given nodes and CSR arrays.
+	 * Called from BinaryGraphFile when a snapshot is loaded.
+	 *
+	 * @param cityNodes the nodes, indexed by node id
+	 * @param offsets CSR offsets, of size cityNodes.length + 1
+	 * @param targets CSR targets
+	 * @param costs CSR costs
+	 */
+	void setGraph(CityNode[] cityNodes, int[] offsets, int[] targets, int[] costs) {
+		HashTable table = new HashTable(Math.max(cityNodes.length, 20)); // maps the city names to node ids
+
+		for (int v = 0; v < cityNodes.length; v++) {
+			table.insert(cityNodes[v].getCity(), v);
+		}
+		setGraph(cityNodes, table, offsets, targets, costs);
+	}
+
+	/**
+	 * Replaces the contents of the graph with the given nodes, hash table and CSR arrays.
+	 * Called from GraphBuilder.
+	 *
+	 * @param cityNodes the nodes, indexed by node id
+	 * @param table maps the city names to node ids
+	 * @param offsets CSR offsets, of size cityNodes.length + 1
+	 * @param targets CSR targets
+	 * @param costs CSR costs
+	 */
+	void setGraph(CityNode[] cityNodes, HashTable table, int[] offsets, int[] targets, int[] costs) {
+		nodes = cityNodes;
+		numNodes = cityNodes.length;
+		hashTable = table;
+		loadedFrom = null;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.costs = costs;
+		numEdges = offsets[numNodes];
+		adjacencyList = null; // the linked lists are built on demand by getAdjacencyList
+	}
+
+	/**
+	 * Freezes the adjacency list into compressed sparse row (CSR) form:
+	 * the edges of every node are stored next to each other in the primitive
+	 * targets and costs arrays, and offsets[v] is the index of the first edge of node v.
+	 * The edges of each node keep the order of its linked list.
+	 * Called from loadGraph.
+	 */
+	public void buildCSR() {
+		Edge curr; // the current edge in the linked list of node v
+		int e; // index of the next free slot in targets and costs
+
+		offsets = new int[numNodes + 1];
+		targets = new int[numEdges];
+		costs = new int[numEdges];
+		e = 0;
+		for (int v = 0; v < numNodes; v++) {
+			offsets[v] = e;
+			if (adjacencyList != null && v < adjacencyList.length && adjacencyList[v] != null) {
+				for (curr = adjacencyList[v].next(); curr != null; curr = curr.next()) {
+					targets[e] = curr.getNeighbor();
+					costs[e] = curr.getCost();
+					e++;
+				}
+			}
+		}
+		offsets[numNodes] = e;
+	}
+
 	/**
 	 * Add a node to the array of nodes.
-	 * Add a HashEntry to the HashTable
+	 * Add the city name and node id to the HashTable
 	 * Increment numNodes variable.
      * Called from loadGraph.
 	 *
 	 * @param node a CityNode to add to the graph
 	 */
 	public void addNode(CityNode node) {
-		int nodeId; // stores the nodeId to create a HashEntry for the HashTable
+		int nodeId; // stores the nodeId to insert into the HashTable
 		String cityName; // stores the city name stored in node
 
 		if (numNodes == 0) {
@@ -109,16 +179,7 @@ public class Graph {
 	 * Used when the current nodes graph is full.
 	 */
 	public void resizeNodesGraph() {
-		CityNode[] tmp = new CityNode[nodes.length];
-		for(int i = 0; i < nodes.length; i++) {
-			tmp[i] = nodes[i];
-		}
-
-		int size = numNodes * 2;
-		nodes = new CityNode[size];
-		for (int i = 0; i < tmp.length; i++) {
-			nodes[i] = tmp[i];
-		}
+		nodes = Arrays.copyOf(nodes, Math.max(nodes.length * 2, 20));
 	}
 
 	/**
@@ -149,10 +210,16 @@ public class Graph {
 	 */
 	public void addEdge(int nodeId, Edge edge) {
 		Edge vi; // the vertex vi in the adjacency list
-		if (numEdges == 0) {
-			adjacencyList = new Edge[20];
+		if (adjacencyList == null && offsets != null) {
+			getAdjacencyList(); // the graph is frozen: go back to linked lists
 		}
-		if (adjacencyList.length <= numEdges) {
+		offsets = null; // the CSR arrays are now stale, they are rebuilt on demand
+		targets = null;
+		costs = null;
+		if (adjacencyList == null) {
+			adjacencyList = new Edge[Math.max(numNodes, 20)];
+		}
+		if (adjacencyList.length <= nodeId) {
 			resizeAdjacencyList();
 		}
 
@@ -173,28 +240,107 @@ public class Graph {
 	}
 
 	/**
-	 * Increases the size of the nodes graph by a factor of 2.
-	 * Used when the current nodes graph is full.
+	 * Changes the cost of the edge between two cities, in both directions.
+	 * See updateEdgeCost(int, int, int).
+	 *
+	 * @param city1 name of one city
+	 * @param city2 name of the other city
+	 * @param newCost the new cost
+	 * @return the cost before the change
+	 * @throws IllegalArgumentException if a city is not in the graph, if the cities
+	 * are not connected by an edge, or if the cost is negative
 	 */
-	public void resizeAdjacencyList() {
-		Edge[] tmp = new Edge[adjacencyList.length];
-		for(int i = 0; i < nodes.length; i++) {
-			tmp[i] = adjacencyList[i];
+	public int updateEdgeCost(String city1, String city2, int newCost) {
+		int nodeId1 = hashTable.find(city1);
+		int nodeId2 = hashTable.find(city2);
+
+		if (nodeId1 == -1 || nodeId2 == -1) {
+			throw new IllegalArgumentException("No such city: " + (nodeId1 == -1 ? city1 : city2));
 		}
+		return updateEdgeCost(nodeId1, nodeId2, newCost);
+	}
 
-		int size = numEdges * 2;
-		adjacencyList = new Edge[size];
-		for (int i = 0; i < tmp.length; i++) {
-			adjacencyList[i] = tmp[i];
+	/**
+	 * Changes the cost of the edge between two nodes in place, in both directions
+	 * (if the nodes are connected by several edges, all of them get the new cost),
+	 * and tells the registered EdgeCostListener-s, so that cached shortest path
+	 * trees are repaired rather than thrown away.
+	 * Preprocessed engines are not told: a ContractionHierarchy, the landmark
+	 * distances of ALT and the scale of the AStar heuristic may no longer be valid
+	 * after a change (for ALT and AStar only when a cost goes down), so build
+	 * them again. A GraphSnapshot keeps the costs it was taken with.
+	 *
+	 * @param nodeId1 id of one end of the edge
+	 * @param nodeId2 id of the other end of the edge
+	 * @param newCost the new cost
+	 * @return the cost before the change, the smallest one if there were several edges
+	 * @throws IllegalArgumentException if the nodes are not connected by an edge, or if the cost is negative
+	 */
+	public int updateEdgeCost(int nodeId1, int nodeId2, int newCost) {
+		int oldCost = Integer.MAX_VALUE; // smallest cost of the edges between the two nodes
+		boolean found = false;
+
+		if (newCost < 0) {
+			throw new IllegalArgumentException("Edge costs can not be negative: " + newCost);
+		}
+		getOffsets();
+		for (int e = offsets[nodeId1]; e < offsets[nodeId1 + 1]; e++) {
+			if (targets[e] == nodeId2) {
+				oldCost = Math.min(oldCost, costs[e]);
+				costs[e] = newCost;
+				found = true;
+			}
+		}
+		if (!found) {
+			throw new IllegalArgumentException("There is no edge between " + nodeId1 + " and " + nodeId2);
+		}
+		for (int e = offsets[nodeId2]; e < offsets[nodeId2 + 1]; e++) {
+			if (targets[e] == nodeId1) {
+				costs[e] = newCost;
+			}
+		}
+		adjacencyList = null; // the compatibility view is rebuilt from the CSR arrays on demand
+		loadedFrom = null; // the graph no longer matches its file
+		for (EdgeCostListener listener : edgeCostListeners) {
+			listener.edgeCostChanged(this, nodeId1, nodeId2, oldCost, newCost);
+		}
+		return oldCost;
+	}
+
+	/**
+	 * Registers a listener that is told about every updateEdgeCost
+	 * @param listener the listener; registering it twice has no effect
+	 */
+	public void addEdgeCostListener(EdgeCostListener listener) {
+		if (!edgeCostListeners.contains(listener)) {
+			edgeCostListeners.add(listener);
 		}
 	}
 
+	/**
+	 * Removes a listener registered with addEdgeCostListener
+	 * @param listener the listener
+	 */
+	public void removeEdgeCostListener(EdgeCostListener listener) {
+		edgeCostListeners.remove(listener);
+	}
+
+	/**
+	 * Increases the size of the adjacency list to at least the size of the
+	 * nodes array, and at least by a factor of 2.
+	 * Used when a node has no slot in the adjacency list yet.
+	 */
+	public void resizeAdjacencyList() {
+		adjacencyList = Arrays.copyOf(adjacencyList, Math.max(adjacencyList.length * 2, nodes.length));
+	}
+
 	/**
 	 * Prints the adjacency list of edges
 	 */
 	public void printAdjecencyList() {
 		Edge curr; // the current vertex vi in the adjacency list
 
+		getAdjacencyList();
 		for(int i = 0; i < adjacencyList.length; i++) {
 			curr = adjacencyList[i];
 			if (curr != null) {
@@ -209,13 +355,121 @@ public class Graph {
 	}
 
 	/**
-	 * Returns the adjacency list of type Edge
+	 * Returns the adjacency list of type Edge.
+	 * Once the graph is frozen this is a compatibility view that is built from
+	 * the CSR arrays the first time it is requested; the search algorithms
+	 * use getOffsets, getTargets and getCosts instead.
 	 * @return adjacency list
 	 */
 	public Edge[] getAdjacencyList() {
+		Edge vi; // the vertex vi in the adjacency list
+		Edge edge; // the edge we are adding to the linked list of vi
+
+		if (adjacencyList == null && offsets != null) {
+			adjacencyList = new Edge[Math.max(numNodes, 1)];
+			for (int v = 0; v < numNodes; v++) {
+				vi = new Edge(v, 0);
+				adjacencyList[v] = vi;
+				for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+					edge = new Edge(targets[e], costs[e]);
+					vi.setNext(edge);
+					vi = edge;
+				}
+			}
+		}
 		return adjacencyList;
 	}
 
+	/**
+	 * Return the number of edges in the graph, counting both directions of an edge
+	 * @return number of edges
+	 */
+	public int numEdges() {
+		return getOffsets()[numNodes];
+	}
+
+	/**
+	 * Returns the id of the first edge of a node in the CSR arrays
+	 * @param nodeId id of the node, or numNodes for the end of the last node's edges
+	 * @return edge id
+	 */
+	public int firstEdge(int nodeId) {
+		return getOffsets()[nodeId];
+	}
+
+	/**
+	 * Returns the neighbor a given edge leads to
+	 * @param edge id of the edge in the CSR arrays
+	 * @return node id of the neighbor
+	 */
+	public int target(int edge) {
+		return getTargets()[edge];
+	}
+
+	/**
+	 * Returns the cost of a given edge
+	 * @param edge id of the edge in the CSR arrays
+	 * @return the cost
+	 */
+	public int cost(int edge) {
+		return getCosts()[edge];
+	}
+
+	/**
+	 * Returns the x coordinate of the location of a node on the map
+	 * @param nodeId id of the node
+	 * @return x coordinate in pixels
+	 */
+	public int locationX(int nodeId) {
+		return nodes[nodeId].getLocation().x;
+	}
+
+	/**
+	 * Returns the y coordinate of the location of a node on the map
+	 * @param nodeId id of the node
+	 * @return y coordinate in pixels
+	 */
+	public int locationY(int nodeId) {
+		return nodes[nodeId].getLocation().y;
+	}
+
+	/**
+	 * Returns the CSR offsets array: the edges of node v are at indices
+	 * offsets[v] .. offsets[v + 1] - 1 of the targets and costs arrays.
+	 * The array is shared with the graph and must not be modified.
+	 * @return offsets array of size numNodes + 1
+	 */
+	int[] getOffsets() {
+		if (offsets == null) {
+			buildCSR();
+		}
+		return offsets;
+	}
+
+	/**
+	 * Returns the CSR targets array (the neighbor id of each edge).
+	 * The array is shared with the graph and must not be modified.
+	 * @return targets array of size numEdges
+	 */
+	int[] getTargets() {
+		if (offsets == null) {
+			buildCSR();
+		}
+		return targets;
+	}
+
+	/**
+	 * Returns the CSR costs array (the cost of each edge).
+	 * The array is shared with the graph and must not be modified.
+	 * @return costs array of size numEdges
+	 */
+	int[] getCosts() {
+		if (offsets == null) {
+			buildCSR();
+		}
+		return costs;
+	}
+
 	/**
 	 * Returns an integer id of the given city node
 	 * @param city node of the graph
@@ -245,17 +499,14 @@ public class Graph {
 
 		Point v1;
 		Point v2;
-		for(int j = 0; j < nodes.length; j++) {
-			int sourceNodeId = adjacencyList[j].getNeighbor();
-			v1 = getPoint(sourceNodeId);
-			Edge destinationEdge = adjacencyList[j].next();
-			while (destinationEdge != null) {
+		getOffsets();
+		for(int j = 0; j < numNodes; j++) {
+			v1 = getPoint(j);
+			for (int e = offsets[j]; e < offsets[j + 1]; e++) {
 				edges2D[i][0] = v1;
-				int destinationNodeId = destinationEdge.getNeighbor();
-				v2 = getPoint(destinationNodeId);
+				v2 = getPoint(targets[e]);
 				edges2D[i][1] = v2;
 				i++;
-				destinationEdge = destinationEdge.next();
 			}
 		}
 //		printEdges(edges2D);
@@ -355,16 +606,46 @@ public class Graph {
         return edges2D;
 	}
 
-	/** Take a list of node ids on prim's MST and return an array where each
-	 * element contains two points (an edge between two consecutive nodes)
-	 * @param minSpanningTree A list of node ids in the MST
+	/** Take a list of node ids on the path and return the total cost of the path.
+	 * If two consecutive nodes are connected by several edges, the cheapest one is used.
+	 * @param pathOfNodes A list of node ids on the path
+	 * @return the sum of the costs of the edges on the path
+	 * @throws IllegalArgumentException if two consecutive nodes are not connected by an edge
+	 */
+	public int getPathCost(List<Integer> pathOfNodes) {
+		int total = 0;
+		int v;
+		int u;
+		int best; // cost of the cheapest edge from v to u
+
+		getOffsets();
+		for (int j = 0; j + 1 < pathOfNodes.size(); j++) {
+			v = pathOfNodes.get(j);
+			u = pathOfNodes.get(j + 1);
+			best = -1;
+			for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+				if (targets[e] == u && (best == -1 || costs[e] < best)) {
+					best = costs[e];
+				}
+			}
+			if (best == -1) {
+				throw new IllegalArgumentException("There is no edge between nodes " + v + " and " + u);
+			}
+			total += best;
+		}
+		return total;
+	}
+
+	/** Take the edges of a minimum spanning tree and return an array where each
+	 * element contains the two points of an edge
+	 * @param minSpanningTree the edges of the MST, as computed by any SpanningTreeAlgorithm
 	 * @return array where each element is an array of 2 points
 	 */
 	public Point[][] getPrimPath(List<PrimsMST.Edges> minSpanningTree) {
 		PrimsMST.Edges edge;
 		Point v;
 		Point u;
-		Point[][] edges2D = new Point[minSpanningTree.size() - 1][2];
+		Point[][] edges2D = new Point[minSpanningTree.size()][2];
 
 		for (int j = 0; j < edges2D.length; j++) {
 			edge = minSpanningTree.get(j);
@@ -0,0 +1,312 @@
+package graph;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/** Builds a Graph in memory, without a file.
+ *
+ *  Nodes and edges are collected in primitive arrays that are sized once
+ *  from the expected counts (given to the constructor, or read from the
+ *  NODES header by GraphFileParser); they only grow, by doubling, when more
+ *  are added than expected. build() turns the edges into the CSR arrays of
+ *  the graph in one counting-sort pass, so no Edge objects and no linked
+ *  lists are created.
+ *
+ *  Like the arcs of a graph file, every edge connects two cities in both
+ *  directions. Nodes get ids in the order they are added.
+ *
+ *  <pre>
+ *  GraphBuilder builder = new GraphBuilder(numCities, numRoads);
+ *  builder.addNodes(cities, x, y);
+ *  builder.addEdges(from, to, cost);
+ *  Graph graph = builder.build();
+ *  </pre>
+ */
+public class GraphBuilder {
+    private static final int MAX_EDGES = (Integer.MAX_VALUE - 8) / 2; // the CSR arrays hold every edge twice
+
+    private String[] cities; // name of each node
+    private double[] xCoords; // x coordinate of each node
+    private double[] yCoords; // y coordinate of each node
+    private int numNodes; // number of nodes added so far
+    private HashTable hashTable; // maps city names to node ids
+
+    private int[] edgeFrom; // first node of each edge
+    private int[] edgeTo; // second node of each edge
+    private int[] edgeCost; // cost of each edge
+    private int numEdges; // number of edges added so far
+    private boolean built; // whether build has been called
+
+    /**
+     * Constructor for a graph of unknown size
+     */
+    public GraphBuilder() {
+        this(20, 20);
+    }
+
+    /**
+     * Constructor. The arrays are sized for the given counts up front.
+     * @param numNodes expected number of nodes
+     * @param numEdges expected number of edges (each edge connects two nodes in both directions)
+     * @throws IllegalArgumentException if a size is negative or there are more edges than a graph can hold
+     */
+    public GraphBuilder(int numNodes, int numEdges) {
+        if (numNodes < 0 || numEdges < 0) {
+            throw new IllegalArgumentException("Negative size: " + numNodes + " nodes, " + numEdges + " edges");
+        }
+        checkEdgeCapacity(numEdges);
+        cities = new String[numNodes];
+        xCoords = new double[numNodes];
+        yCoords = new double[numNodes];
+        hashTable = new HashTable(Math.max(numNodes, 20));
+        edgeFrom = new int[numEdges];
+        edgeTo = new int[numEdges];
+        edgeCost = new int[numEdges];
+    }
+
+    /**
+     * Makes room for at least the given total number of nodes
+     * @param capacity number of nodes
+     */
+    public void ensureNodeCapacity(int capacity) {
+        if (capacity > cities.length) {
+            cities = Arrays.copyOf(cities, capacity);
+            xCoords = Arrays.copyOf(xCoords, capacity);
+            yCoords = Arrays.copyOf(yCoords, capacity);
+        }
+    }
+
+    /**
+     * Makes room for at least the given total number of edges
+     * @param capacity number of edges
+     * @throws IllegalArgumentException if a graph can not hold that many edges
+     */
+    public void ensureEdgeCapacity(int capacity) {
+        checkEdgeCapacity(capacity);
+        if (capacity > edgeFrom.length) {
+            edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+            edgeTo = Arrays.copyOf(edgeTo, capacity);
+            edgeCost = Arrays.copyOf(edgeCost, capacity);
+        }
+    }
+
+    /**
+     * Adds a city
+     * @param city name of the city
+     * @param x x coordinate, in the units of the graph files
+     * @param y y coordinate, in the units of the graph files
+     * @return node id of the city
+     */
+    public int addNode(String city, double x, double y) {
+        checkNotBuilt();
+        if (numNodes == cities.length) {
+            ensureNodeCapacity(Math.max(2 * numNodes, 20));
+        }
+        cities[numNodes] = city;
+        xCoords[numNodes] = x;
+        yCoords[numNodes] = y;
+        hashTable.insert(city, numNodes);
+        return numNodes++;
+    }
+
+    /**
+     * Adds cities in bulk. The i-th city gets the node id numNodes() + i.
+     * @param cities names of the cities
+     * @param x x coordinate of each city
+     * @param y y coordinate of each city
+     */
+    public void addNodes(String[] cities, double[] x, double[] y) {
+        if (x.length != cities.length || y.length != cities.length) {
+            throw new IllegalArgumentException("Arrays of different lengths: " + cities.length + " cities, "
+                    + x.length + " x, " + y.length + " y");
+        }
+        checkNotBuilt();
+        ensureNodeCapacity(numNodes + cities.length);
+        System.arraycopy(cities, 0, this.cities, numNodes, cities.length);
+        System.arraycopy(x, 0, xCoords, numNodes, cities.length);
+        System.arraycopy(y, 0, yCoords, numNodes, cities.length);
+        for (int i = 0; i < cities.length; i++) {
+            hashTable.insert(cities[i], numNodes++);
+        }
+    }
+
+    /**
+     * Adds an edge between two cities, in both directions
+     * @param nodeId1 node id of the first city
+     * @param nodeId2 node id of the second city
+     * @param cost cost of the edge, not negative
+     * @throws IllegalArgumentException if a node does not exist, the cost is negative
+     * or the builder already holds as many edges as a graph can
+     */
+    public void addEdge(int nodeId1, int nodeId2, int cost) {
+        checkNotBuilt();
+        checkNode(nodeId1);
+        checkNode(nodeId2);
+        checkCost(cost);
+        if (numEdges == edgeFrom.length) {
+            checkEdgeCapacity(numEdges + 1L);
+            ensureEdgeCapacity((int) Math.min(Math.max(2L * numEdges, 20), MAX_EDGES));
+        }
+        edgeFrom[numEdges] = nodeId1;
+        edgeTo[numEdges] = nodeId2;
+        edgeCost[numEdges] = cost;
+        numEdges++;
+    }
+
+    /**
+     * Adds edges in bulk; edge i connects from[i] and to[i] in both directions
+     * @param from node id of the first city of each edge
+     * @param to node id of the second city of each edge
+     * @param cost cost of each edge, not negative
+     * @throws IllegalArgumentException if the arrays differ in length, a node does not exist,
+     * a cost is negative or a graph can not hold that many edges
+     */
+    public void addEdges(int[] from, int[] to, int[] cost) {
+        if (to.length != from.length || cost.length != from.length) {
+            throw new IllegalArgumentException("Arrays of different lengths: " + from.length + " from, "
+                    + to.length + " to, " + cost.length + " cost");
+        }
+        checkNotBuilt();
+        for (int i = 0; i < from.length; i++) {
+            checkNode(from[i]);
+            checkNode(to[i]);
+            checkCost(cost[i]);
+        }
+        checkEdgeCapacity((long) numEdges + from.length);
+        ensureEdgeCapacity(numEdges + from.length);
+        System.arraycopy(from, 0, edgeFrom, numEdges, from.length);
+        System.arraycopy(to, 0, edgeTo, numEdges, from.length);
+        System.arraycopy(cost, 0, edgeCost, numEdges, from.length);
+        numEdges += from.length;
+    }
+
+    /**
+     * Returns the node id of a city
+     * @param city name of the city
+     * @return node id, -1 if the city has not been added
+     */
+    public int findId(String city) {
+        return hashTable.find(city);
+    }
+
+    /**
+     * Finds the node id of a city whose name is stored as bytes in a buffer.
+     * Used by GraphFileParser to look up the cities of an arc without creating Strings.
+     * @param buffer the buffer that holds the name
+     * @param start index of the first byte of the name
+     * @param length number of bytes of the name
+     * @return the node id, -1 if there is no such city
+     */
+    int findId(ByteBuffer buffer, int start, int length) {
+        return hashTable.find(buffer, start, length);
+    }
+
+    /**
+     * Returns the number of nodes added so far
+     * @return number of nodes
+     */
+    public int numNodes() {
+        return numNodes;
+    }
+
+    /**
+     * Returns the number of edges added so far
+     * @return number of edges
+     */
+    public int numEdges() {
+        return numEdges;
+    }
+
+    /**
+     * Returns the x coordinates of the nodes, indexed by node id.
+     * The array may be longer than the number of nodes.
+     * @return array of x coordinates
+     */
+    double[] getXCoords() {
+        return xCoords;
+    }
+
+    /**
+     * Returns the y coordinates of the nodes, indexed by node id.
+     * The array may be longer than the number of nodes.
+     * @return array of y coordinates
+     */
+    double[] getYCoords() {
+        return yCoords;
+    }
+
+    /**
+     * Creates the graph. The builder can not be used afterwards.
+     * @return a graph in CSR form
+     */
+    public Graph build() {
+        Graph graph = new Graph();
+        buildInto(graph);
+        return graph;
+    }
+
+    /**
+     * Replaces the contents of the given graph with the nodes and edges of this builder.
+     * The edges of each node are stored from the last edge added to the first,
+     * the order of the linked lists built by Graph.addEdge.
+     * @param graph the graph to fill in
+     */
+    void buildInto(Graph graph) {
+        CityNode[] nodes = new CityNode[numNodes];
+        int[] offsets = new int[numNodes + 1];
+        int[] targets = new int[2 * numEdges]; // numEdges <= MAX_EDGES, so this does not overflow
+        int[] costs = new int[2 * numEdges];
+        int[] next = new int[numNodes]; // next free index in the edges of each node
+
+        checkNotBuilt();
+        built = true;
+        for (int v = 0; v < numNodes; v++) {
+            nodes[v] = new CityNode(cities[v], xCoords[v], yCoords[v]);
+        }
+        for (int e = 0; e < numEdges; e++) { // count the edges of each node
+            offsets[edgeFrom[e] + 1]++;
+            offsets[edgeTo[e] + 1]++;
+        }
+        for (int v = 0; v < numNodes; v++) {
+            offsets[v + 1] += offsets[v];
+            next[v] = offsets[v];
+        }
+        for (int e = numEdges - 1; e >= 0; e--) {
+            targets[next[edgeFrom[e]]] = edgeTo[e];
+            costs[next[edgeFrom[e]]++] = edgeCost[e];
+            targets[next[edgeTo[e]]] = edgeFrom[e];
+            costs[next[edgeTo[e]]++] = edgeCost[e];
+        }
+        graph.setGraph(nodes, hashTable, offsets, targets, costs);
+        cities = null; // the graph owns the names and the hash table now
+        edgeFrom = null;
+        edgeTo = null;
+        edgeCost = null;
+    }
+
+    private void checkCost(int cost) {
+        if (cost < 0) {
+            throw new IllegalArgumentException("Edge costs can not be negative: " + cost);
+        }
+    }
+
+    /** Throws an exception if a graph can not hold the given number of edges */
+    private void checkEdgeCapacity(long numEdges) {
+        if (numEdges > MAX_EDGES) {
+            throw new IllegalArgumentException("A graph holds at most " + MAX_EDGES + " edges, not " + numEdges);
+        }
+    }
+
+    private void checkNode(int nodeId) {
+        if (nodeId < 0 || nodeId >= numNodes) {
+            throw new IllegalArgumentException("No node with id " + nodeId + ", the builder has " + numNodes
+                    + " nodes");
+        }
+    }
+
+    private void checkNotBuilt() {
+        if (built) {
+            throw new IllegalStateException("The graph has already been built");
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package graph;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/** Reads a graph file in the NODES / ARCS format of USA.txt:
+ *  <pre>
+ *  NODES
+ *  20
+ *  SanFrancisco 0.28 2.31
+ *  ...
+ *  ARCS
+ *  SanFrancisco LosAngeles 320
+ *  ...
+ *  </pre>
+ *  The file is memory-mapped and scanned byte by byte. Tokens are never turned
+ *  into Strings: coordinates and costs are parsed from the bytes, and the city
+ *  names of an arc are looked up in the HashTable straight from the mapped
+ *  buffer. The only objects created per node are its name and its CityNode;
+ *  nothing is created per arc. As in the original line-based loader, a line
+ *  with at least two tokens is a node if its second token starts with a digit,
+ *  and an arc otherwise. The number below NODES is used to size the
+ *  GraphBuilder for all nodes, and at ARCS the remaining lines are counted to
+ *  size it for all arcs; other lines are skipped.
+ *
+ *  City names are read as ISO-8859-1, one char per byte, so ASCII names are
+ *  unchanged.
+ */
+public class GraphFileParser {
+    private static final long WINDOW = 1L << 30; // bytes mapped at a time, below the 2 GB limit of a buffer
+    private static final double[] POWERS_OF_TEN = { // exact powers of ten as doubles
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final byte[] ARCS = {'A', 'R', 'C', 'S'}; // header of the arcs section
+
+    private GraphBuilder builder; // collects the nodes and arcs
+    private MappedByteBuffer buffer; // the mapped window of the file
+    private byte[] nameBytes = new byte[64]; // scratch copy of a city name
+    private int lineNumber; // number of the line being parsed, for error messages
+
+    // start and end (exclusive) of the tokens of the current line, in buffer positions
+    private int[] tokenStart = new int[3];
+    private int[] tokenEnd = new int[3];
+
+    private GraphFileParser(GraphBuilder builder) {
+        this.builder = builder;
+    }
+
+    /**
+     * Reads the nodes and arcs of the file into a new GraphBuilder
+     * @param filename name of the file that has nodes and edges
+     * @return the builder, ready to build the graph
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if an arc names a city that is not listed under NODES or has a negative cost
+     */
+    public static GraphBuilder parse(String filename) throws IOException {
+        GraphFileParser parser = new GraphFileParser(new GraphBuilder());
+        parser.parseFile(filename);
+        return parser.builder;
+    }
+
+    /**
+     * Maps the file one window at a time. Every window but the last ends
+     * after its last newline, so no line is split between two windows.
+     * @param filename name of the file
+     */
+    private void parseFile(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            int end; // number of bytes of the window that are parsed
+
+            while (position < size) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+                end = buffer.limit();
+                if (position + end < size) {
+                    while (end > 0 && buffer.get(end - 1) != '\n') {
+                        end--;
+                    }
+                    if (end == 0) {
+                        throw new IOException("Line " + (lineNumber + 1) + " of " + filename + " is too long");
+                    }
+                }
+                parseLines(end);
+                position += end;
+            }
+        }
+    }
+
+    /**
+     * Parses the lines in the first end bytes of the mapped window
+     * @param end number of bytes to parse
+     */
+    private void parseLines(int end) {
+        int pos = 0;
+        int numTokens;
+        byte b;
+
+        while (pos < end) {
+            lineNumber++;
+            numTokens = 0;
+            while (pos < end && (b = buffer.get(pos)) != '\n') {
+                if (b == ' ' || b == '\t' || b == '\r') {
+                    pos++;
+                } else {
+                    if (numTokens < 3) {
+                        tokenStart[numTokens] = pos;
+                    }
+                    while (pos < end && !isSeparator(buffer.get(pos))) {
+                        pos++;
+                    }
+                    if (numTokens < 3) {
+                        tokenEnd[numTokens] = pos;
+                    }
+                    numTokens++;
+                }
+            }
+            pos++; // skip the newline
+            if (numTokens == 1) {
+                parseHeader(pos, end);
+            } else if (numTokens >= 2) {
+                if (isDigit(buffer.get(tokenStart[1]))) {
+                    parseNode(numTokens);
+                } else {
+                    parseArc(numTokens);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sizes the builder from a header line: the number of nodes below NODES,
+     * or the number of lines left in the window at ARCS
+     * @param next position of the next line
+     * @param end number of bytes of the window that are parsed
+     */
+    private void parseHeader(int next, int end) {
+        int numLines = 0;
+
+        if (isDigit(buffer.get(tokenStart[0]))) {
+            builder.ensureNodeCapacity(parseInt(0));
+        } else if (tokenEquals(0, ARCS)) {
+            for (int pos = next; pos < end; pos++) {
+                if (buffer.get(pos) == '\n') {
+                    numLines++;
+                }
+            }
+            if (end > next && buffer.get(end - 1) != '\n') {
+                numLines++; // the last line has no newline
+            }
+            builder.ensureEdgeCapacity(builder.numEdges() + numLines);
+        }
+    }
+
+    /** Adds the node on the current line: name x y */
+    private void parseNode(int numTokens) {
+        int length = tokenEnd[0] - tokenStart[0];
+        String cityName;
+
+        requireTokens(numTokens, "a city needs a name and two coordinates");
+        if (length > nameBytes.length) {
+            nameBytes = new byte[Math.max(length, nameBytes.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            nameBytes[i] = buffer.get(tokenStart[0] + i);
+        }
+        cityName = new String(nameBytes, 0, length, StandardCharsets.ISO_8859_1);
+        builder.addNode(cityName, parseDouble(1), parseDouble(2));
+    }
+
+    /** Adds the arc on the current line: city1 city2 cost */
+    private void parseArc(int numTokens) {
+        int cost;
+
+        requireTokens(numTokens, "an arc needs two cities and a cost");
+        cost = parseInt(2);
+        if (cost < 0) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": negative cost " + cost);
+        }
+        builder.addEdge(findCity(0), findCity(1), cost);
+    }
+
+    /**
+     * Looks up the node id of the city named by a token
+     * @param token index of the token on the current line
+     * @return node id of the city
+     */
+    private int findCity(int token) {
+        int nodeId = builder.findId(buffer, tokenStart[token], tokenEnd[token] - tokenStart[token]);
+        if (nodeId == -1) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": unknown city "
+                    + tokenString(token));
+        }
+        return nodeId;
+    }
+
+    /**
+     * Parses a token as an int: an optional sign and decimal digits
+     * @param token index of the token on the current line
+     * @return the value of the token
+     */
+    private int parseInt(int token) {
+        int pos = tokenStart[token];
+        int end = tokenEnd[token];
+        boolean negative = false;
+        long value = 0;
+
+        if (pos < end && (buffer.get(pos) == '-' || buffer.get(pos) == '+')) {
+            negative = buffer.get(pos) == '-';
+            pos++;
+        }
+        if (pos == end) {
+            throw numberError(token);
+        }
+        for (; pos < end; pos++) {
+            byte b = buffer.get(pos);
+            if (!isDigit(b) || value > Integer.MAX_VALUE) {
+                throw numberError(token);
+            }
+            value = value * 10 + (b - '0');
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+            throw numberError(token);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a token as a double. Plain decimals with at most 15 digits are
+     * computed as digits / 10^k: the digits stay below 2^53 and 10^k is exact
+     * for k <= 22, so this is a single correctly rounded division of two exact
+     * doubles and the result equals Double.parseDouble.
+     * Anything else (exponents, longer numbers) falls back to Double.parseDouble.
+     * @param token index of the token on the current line
+     * @return the value of the token
+     */
+    private double parseDouble(int token) {
+        int pos = tokenStart[token];
+        int end = tokenEnd[token];
+        boolean negative = false;
+        boolean seenPoint = false;
+        long digits = 0;
+        int numDigits = 0;
+        int fractionDigits = 0;
+        byte b;
+
+        if (pos < end && (buffer.get(pos) == '-' || buffer.get(pos) == '+')) {
+            negative = buffer.get(pos) == '-';
+            pos++;
+        }
+        for (; pos < end; pos++) {
+            b = buffer.get(pos);
+            if (isDigit(b)) {
+                digits = digits * 10 + (b - '0');
+                numDigits++;
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (pos < end || numDigits == 0 || numDigits > 15 || fractionDigits > 22) {
+            try {
+                return Double.parseDouble(tokenString(token));
+            } catch (NumberFormatException e) {
+                throw numberError(token);
+            }
+        }
+        double value = (double) digits / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private void requireTokens(int numTokens, String message) {
+        if (numTokens < 3) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": " + message);
+        }
+    }
+
+    private IllegalArgumentException numberError(int token) {
+        return new IllegalArgumentException("Line " + lineNumber + ": bad number " + tokenString(token));
+    }
+
+    /** Only used for error messages and rare number formats */
+    private String tokenString(int token) {
+        byte[] bytes = new byte[tokenEnd[token] - tokenStart[token]];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(tokenStart[token] + i);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /** Whether a token consists of the given bytes */
+    private boolean tokenEquals(int token, byte[] bytes) {
+        if (tokenEnd[token] - tokenStart[token] != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(tokenStart[token] + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
@@ -0,0 +1,411 @@
+package graph;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/** Writes synthetic graphs in the NODES / ARCS format of USA.txt, for testing
+ *  how loading, queries and spanning trees scale from a thousand to tens of
+ *  millions of nodes.
+ *
+ *  Three kinds of graphs:
+ *  grid      - a grid, each node linked to its right and lower neighbor;
+ *  geometric - a random geometric graph: uniform random points, linked when
+ *              they are closer than a radius chosen for an average degree of 6
+ *              (the graph is not always connected);
+ *  usa       - a connected, US-like road network: cities of Zipf-distributed
+ *              size spread over the map, towns scattered around each city and
+ *              linked by local roads, and cities linked by faster highways.
+ *  Coordinates lie in [0, 7] x [0, 4] like those of USA.txt, so every node has
+ *  a location on the map (see CityNode), and edge costs are proportional to
+ *  the distance, at about the cost per unit of USA.txt. The node names are
+ *  N0, N1, ... in node id order. The same kind, size and seed always give the
+ *  same file, and the file is written as it is generated, so only the
+ *  coordinates are kept in memory.
+ *
+ *  Run with: java graph.GraphGenerator grid|geometric|usa numNodes outputFile [seed]
+ */
+public class GraphGenerator {
+    public static final long DEFAULT_SEED = 42; // seed used when none is given
+    public static final String GENERATED_DIR = "generated"; // folder of the files written by resolve
+
+    private static final double WIDTH = 7.0; // largest x coordinate of a CityNode
+    private static final double HEIGHT = 4.0; // largest y coordinate of a CityNode
+    private static final double COST_PER_UNIT = 300; // cost of one unit of distance, as in USA.txt
+    private static final double HIGHWAY_FACTOR = 0.6; // highways cost less per unit than local roads
+    private static final double AVERAGE_DEGREE = 6; // target degree of the geometric graphs
+
+    private final Random random; // the only source of randomness
+    private final Writer out; // the graph file
+    private final char[] line = new char[64]; // the line being written
+    private int lineLength; // number of chars in line
+    private long numEdges; // number of arcs written so far
+
+    private GraphGenerator(Writer out, long seed) {
+        this.out = out;
+        this.random = new Random(seed);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: java graph.GraphGenerator grid|geometric|usa numNodes outputFile [seed]");
+            return;
+        }
+        long seed = (args.length > 3) ? Long.parseLong(args[3]) : DEFAULT_SEED;
+        long numEdges = generate(args[0], Integer.parseInt(args[1]), args[2], seed);
+        System.out.println("Wrote " + args[1] + " nodes and " + numEdges + " edges to " + args[2]);
+    }
+
+    /**
+     * Writes a graph file
+     * @param kind "grid", "geometric" or "usa"
+     * @param numNodes number of nodes, at least 2
+     * @param filename name of the file to write
+     * @param seed seed of the random numbers
+     * @return number of edges written
+     * @throws IOException if the file can not be written
+     * @throws IllegalArgumentException if the kind is unknown or there are fewer than 2 nodes
+     */
+    public static long generate(String kind, int numNodes, String filename, long seed) throws IOException {
+        if (numNodes < 2) {
+            throw new IllegalArgumentException("A generated graph needs at least 2 nodes, not " + numNodes);
+        }
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filename),
+                StandardCharsets.ISO_8859_1), 1 << 16)) {
+            GraphGenerator generator = new GraphGenerator(out, seed);
+            switch (kind) {
+                case "grid":
+                    generator.grid(numNodes);
+                    break;
+                case "geometric":
+                    generator.geometric(numNodes);
+                    break;
+                case "usa":
+                    generator.usa(numNodes);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown kind of graph " + kind);
+            }
+            generator.flush();
+            return generator.numEdges;
+        }
+    }
+
+    /**
+     * Returns the file of a graph given either as a file name or as kind-numNodes,
+     * for example usa-100000. A kind-numNodes graph is generated with the default
+     * seed into the generated folder the first time it is asked for.
+     * Lets benchmarks take generated graphs of any size as a parameter.
+     * @param graph a file name, or kind-numNodes
+     * @return name of the graph file
+     * @throws IOException if the graph has to be generated and can not be written
+     */
+    public static String resolve(String graph) throws IOException {
+        int dash = graph.lastIndexOf('-');
+        if (dash <= 0 || graph.contains(".") || !isNumber(graph.substring(dash + 1))) {
+            return graph;
+        }
+        File file = new File(GENERATED_DIR, graph + ".txt");
+        if (!file.isFile()) {
+            File tmp = new File(GENERATED_DIR, graph + ".txt.tmp");
+            file.getParentFile().mkdirs();
+            generate(graph.substring(0, dash), Integer.parseInt(graph.substring(dash + 1)), tmp.getPath(),
+                    DEFAULT_SEED);
+            if (!tmp.renameTo(file)) {
+                throw new IOException("Could not rename " + tmp + " to " + file);
+            }
+        }
+        return file.getPath();
+    }
+
+    private static boolean isNumber(String s) {
+        if (s.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) < '0' || s.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes a grid with columns about as far apart as rows; when numNodes is not
+     * a multiple of the number of columns, the last row is shorter
+     */
+    private void grid(int numNodes) throws IOException {
+        int cols = Math.max(2, (int) Math.ceil(Math.sqrt(numNodes * WIDTH / HEIGHT)));
+        int rows = (numNodes + cols - 1) / cols;
+        double dx = WIDTH / (cols - 1);
+        double dy = HEIGHT / Math.max(1, rows - 1);
+
+        writeNodesHeader(numNodes);
+        for (int v = 0; v < numNodes; v++) {
+            writeNode(v, (v % cols) * dx, HEIGHT - (v / cols) * dy);
+        }
+        writeArcsHeader();
+        for (int v = 0; v < numNodes; v++) {
+            if (v % cols + 1 < cols && v + 1 < numNodes) {
+                writeArc(v, v + 1, roadCost(dx));
+            }
+            if (v + cols < numNodes) {
+                writeArc(v, v + cols, roadCost(dy));
+            }
+        }
+    }
+
+    /**
+     * Writes a random geometric graph. Candidate neighbors are found with a grid
+     * of cells as wide as the radius, so only the 9 cells around a node are searched.
+     */
+    private void geometric(int numNodes) throws IOException {
+        double[] x = new double[numNodes];
+        double[] y = new double[numNodes];
+        double radius = Math.sqrt(AVERAGE_DEGREE * WIDTH * HEIGHT / (Math.PI * numNodes));
+        int cols = Math.max(1, (int) (WIDTH / radius));
+        int rows = Math.max(1, (int) (HEIGHT / radius));
+        int[] cellStart = new int[cols * rows + 1];
+        int[] cellNodes = new int[numNodes];
+        int[] cellOf = new int[numNodes];
+
+        writeNodesHeader(numNodes);
+        for (int v = 0; v < numNodes; v++) {
+            x[v] = random.nextDouble() * WIDTH;
+            y[v] = random.nextDouble() * HEIGHT;
+            writeNode(v, x[v], y[v]);
+            cellOf[v] = cell(x[v], cols, WIDTH) + cols * cell(y[v], rows, HEIGHT);
+            cellStart[cellOf[v] + 1]++;
+        }
+        for (int c = 0; c < cols * rows; c++) { // counting sort of the nodes by cell
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] fill = cellStart.clone();
+        for (int v = 0; v < numNodes; v++) {
+            cellNodes[fill[cellOf[v]]++] = v;
+        }
+
+        writeArcsHeader();
+        for (int v = 0; v < numNodes; v++) {
+            int cx = cellOf[v] % cols;
+            int cy = cellOf[v] / cols;
+            for (int ny = Math.max(0, cy - 1); ny <= Math.min(rows - 1, cy + 1); ny++) {
+                for (int nx = Math.max(0, cx - 1); nx <= Math.min(cols - 1, cx + 1); nx++) {
+                    int c = nx + cols * ny;
+                    for (int i = cellStart[c]; i < cellStart[c + 1]; i++) {
+                        int u = cellNodes[i];
+                        double d;
+                        if (u > v && (d = distance(x, y, u, v)) <= radius) { // each pair once
+                            writeArc(v, u, roadCost(d));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a US-like network. There are about sqrt(numNodes) cities; city h
+     * has a weight of 1 / (h + 1), and every other node is a town of a city
+     * picked in proportion to the weights, placed around it at a distance
+     * that grows with the size of the city. The nodes of a city get
+     * consecutive ids, starting with the city itself. Each town is linked
+     * by a local road to the nearest of three earlier nodes of its city, and
+     * to one more earlier node, so every city is connected; each city is linked
+     * by highways to the two nearest earlier cities, so the whole graph is connected.
+     */
+    private void usa(int numNodes) throws IOException {
+        int numCities = Math.max(2, (int) Math.sqrt(numNodes));
+        double[] weight = new double[numCities];
+        double[] cityX = new double[numCities];
+        double[] cityY = new double[numCities];
+        int[] first = new int[numCities + 1]; // the nodes of city h are first[h] .. first[h + 1] - 1
+        double[] x = new double[numNodes];
+        double[] y = new double[numNodes];
+        double totalWeight = 0;
+
+        for (int h = 0; h < numCities; h++) {
+            weight[h] = 1.0 / (h + 1);
+            totalWeight += weight[h];
+            cityX[h] = 0.2 + random.nextDouble() * (WIDTH - 0.4);
+            cityY[h] = 0.2 + random.nextDouble() * (HEIGHT - 0.4);
+        }
+        double[] cumulative = new double[numCities];
+        double sum = 0;
+        for (int h = 0; h < numCities; h++) {
+            sum += weight[h] / totalWeight;
+            cumulative[h] = sum;
+        }
+        for (int h = 0; h < numCities; h++) {
+            first[h + 1] = 1; // every city has at least its own node
+        }
+        for (int i = numCities; i < numNodes; i++) { // the number of towns of each city
+            int h = Arrays.binarySearch(cumulative, random.nextDouble());
+            h = (h < 0) ? Math.min(-h - 1, numCities - 1) : h;
+            first[h + 1]++;
+        }
+        for (int h = 0; h < numCities; h++) {
+            first[h + 1] += first[h];
+        }
+
+        writeNodesHeader(numNodes);
+        double spread = Math.sqrt(WIDTH * HEIGHT / numCities) / 4; // spread of the towns of the smallest city
+        for (int h = 0; h < numCities; h++) {
+            double sigma = spread * Math.sqrt((first[h + 1] - first[h]) / (double) numNodes * numCities);
+            for (int v = first[h]; v < first[h + 1]; v++) {
+                if (v == first[h]) {
+                    x[v] = cityX[h];
+                    y[v] = cityY[h];
+                } else {
+                    x[v] = clamp(cityX[h] + random.nextGaussian() * sigma, WIDTH);
+                    y[v] = clamp(cityY[h] + random.nextGaussian() * sigma, HEIGHT);
+                }
+                writeNode(v, x[v], y[v]);
+            }
+        }
+
+        writeArcsHeader();
+        for (int h = 0; h < numCities; h++) {
+            for (int v = first[h] + 1; v < first[h + 1]; v++) {
+                int count = v - first[h]; // number of earlier nodes of the city
+                int best = first[h] + random.nextInt(count);
+                for (int k = 0; k < 2; k++) {
+                    int u = first[h] + random.nextInt(count);
+                    if (distance(x, y, u, v) < distance(x, y, best, v)) {
+                        best = u;
+                    }
+                }
+                writeArc(v, best, roadCost(distance(x, y, best, v)));
+                if (count > 1) {
+                    int other = first[h] + random.nextInt(count - 1);
+                    if (other >= best) {
+                        other++; // any earlier node but best
+                    }
+                    writeArc(v, other, roadCost(distance(x, y, other, v)));
+                }
+            }
+        }
+        for (int h = 1; h < numCities; h++) {
+            int nearest = -1;
+            int second = -1;
+            for (int g = 0; g < h; g++) {
+                double d = distance(cityX, cityY, g, h);
+                if (nearest == -1 || d < distance(cityX, cityY, nearest, h)) {
+                    second = nearest;
+                    nearest = g;
+                } else if (second == -1 || d < distance(cityX, cityY, second, h)) {
+                    second = g;
+                }
+            }
+            writeArc(first[h], first[nearest], highwayCost(distance(cityX, cityY, nearest, h)));
+            if (second != -1) {
+                writeArc(first[h], first[second], highwayCost(distance(cityX, cityY, second, h)));
+            }
+        }
+    }
+
+    private static int cell(double coordinate, int numCells, double size) {
+        return Math.min(numCells - 1, (int) (coordinate / size * numCells));
+    }
+
+    private static double clamp(double coordinate, double size) {
+        return Math.max(0, Math.min(size, coordinate));
+    }
+
+    private static double distance(double[] x, double[] y, int v, int u) {
+        double dx = x[v] - x[u];
+        double dy = y[v] - y[u];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Cost of a local road: proportional to its length, up to 50% more for slow roads, at least 1
+     */
+    private int roadCost(double length) {
+        return Math.max(1, (int) Math.round(COST_PER_UNIT * length * (1 + 0.5 * random.nextDouble())));
+    }
+
+    private int highwayCost(double length) {
+        return Math.max(1, (int) Math.round(COST_PER_UNIT * HIGHWAY_FACTOR * length));
+    }
+
+    // Output: every line is built in a char array and written in one call
+
+    private void writeNodesHeader(int numNodes) throws IOException {
+        out.write("NODES\n");
+        out.write(numNodes + "\n");
+    }
+
+    private void writeArcsHeader() throws IOException {
+        out.write("ARCS\n");
+    }
+
+    private void writeNode(int v, double x, double y) throws IOException {
+        lineLength = 0;
+        appendName(v);
+        append(' ');
+        appendCoordinate(x);
+        append(' ');
+        appendCoordinate(y);
+        append('\n');
+        out.write(line, 0, lineLength);
+    }
+
+    private void writeArc(int v, int u, int cost) throws IOException {
+        lineLength = 0;
+        appendName(v);
+        append(' ');
+        appendName(u);
+        append(' ');
+        appendInt(cost);
+        append('\n');
+        out.write(line, 0, lineLength);
+        numEdges++;
+    }
+
+    private void flush() throws IOException {
+        out.flush();
+    }
+
+    private void append(char c) {
+        line[lineLength++] = c;
+    }
+
+    private void appendName(int v) {
+        append('N');
+        appendInt(v);
+    }
+
+    private void appendInt(int value) {
+        int start = lineLength;
+        do {
+            append((char) ('0' + value % 10));
+            value /= 10;
+        } while (value > 0);
+        for (int i = start, j = lineLength - 1; i < j; i++, j--) { // the digits were written backwards
+            char t = line[i];
+            line[i] = line[j];
+            line[j] = t;
+        }
+    }
+
+    /**
+     * Appends a coordinate with 4 decimals, which is well below a pixel of the map
+     */
+    private void appendCoordinate(double coordinate) {
+        int tenThousandths = (int) Math.round(coordinate * 10000);
+        int fraction = tenThousandths % 10000;
+        appendInt(tenThousandths / 10000);
+        append('.');
+        append((char) ('0' + fraction / 1000));
+        append((char) ('0' + fraction / 100 % 10));
+        append((char) ('0' + fraction / 10 % 10));
+        append((char) ('0' + fraction % 10));
+    }
+}
@@ -0,0 +1,87 @@
+package graph;
+
+import java.awt.Point;
+import java.util.List;
+
+/** An immutable copy of a loaded Graph that can be shared between threads.
+ *  The constructor copies the CSR arrays, the city nodes and the city name
+ *  index; nothing is written after that, and every field is final, so any
+ *  number of threads can read a snapshot without locking.
+ *  Changes made to the Graph after the snapshot was taken are not visible.
+ *  Like Graph it is a GraphStorage, so SearchWorkspace searches it directly.
+ */
+public final class GraphSnapshot implements GraphStorage {
+    private final int numNodes; // total number of nodes
+    private final CityNode[] nodes; // nodes of the graph
+    private final int[] offsets; // CSR offsets: the edges of node v are at offsets[v] .. offsets[v + 1] - 1
+    private final int[] targets; // CSR targets: the neighbor id of each edge
+    private final int[] costs; // CSR costs: the cost of each edge
+    private final HashTable hashTable; // maps city names to node ids; only read after the constructor
+
+    /**
+     * Takes a snapshot of the graph
+     * @param graph graph that has already been loaded with Graph.loadGraph
+     */
+    public GraphSnapshot(Graph graph) {
+        numNodes = graph.numNodes();
+        nodes = new CityNode[numNodes];
+        hashTable = new HashTable(numNodes);
+        for (int v = 0; v < numNodes; v++) {
+            nodes[v] = graph.getNode(v);
+            hashTable.insert(nodes[v].getCity(), v);
+        }
+        offsets = graph.getOffsets().clone();
+        targets = graph.getTargets().clone();
+        costs = graph.getCosts().clone();
+    }
+
+    /**
+     * Return the number of nodes in the graph
+     * @return number of nodes
+     */
+    public int numNodes() {
+        return numNodes;
+    }
+
+    /**
+     * Returns an integer id of the given city node
+     * @param city node of the graph
+     * @return its integer id, -1 if the city is not in the graph
+     */
+    public int getId(CityNode city) {
+        return hashTable.find(city.getCity());
+    }
+
+    /**
+     * Return the CityNode for the given nodeId
+     * @param nodeId id of the node
+     * @return CityNode
+     */
+    public CityNode getNode(int nodeId) {
+        return nodes[nodeId];
+    }
+
+    /** Take a list of node ids on the path and return an array where each
+     * element contains two points (an edge between two consecutive nodes),
+     * as Graph.getPath does
+     * @param pathOfNodes A list of node ids on the path
+     * @return array where each element is an array of 2 points
+     */
+    public Point[][] getPath(List<Integer> pathOfNodes) {
+        Point[][] edges2D = new Point[Math.max(pathOfNodes.size() - 1, 0)][2];
+        for (int j = 0; j < edges2D.length; j++) {
+            edges2D[j][0] = new Point(nodes[pathOfNodes.get(j)].getLocation());
+            edges2D[j][1] = new Point(nodes[pathOfNodes.get(j + 1)].getLocation());
+        }
+        return edges2D;
+    }
+
+    // GraphStorage
+
+    public int numEdges() { return offsets[numNodes]; }
+    public int firstEdge(int nodeId) { return offsets[nodeId]; }
+    public int target(int edge) { return targets[edge]; }
+    public int cost(int edge) { return costs[edge]; }
+    public int locationX(int nodeId) { return nodes[nodeId].getLocation().x; }
+    public int locationY(int nodeId) { return nodes[nodeId].getLocation().y; }
+}
@@ -0,0 +1,58 @@
+package graph;
+
+/** Read access to the nodes and edges of a graph in CSR form, whatever holds them.
+ *
+ *  The edges of node v have the ids firstEdge(v) .. firstEdge(v + 1) - 1,
+ *  and firstEdge(numNodes()) is numEdges(). Every edge is stored once per
+ *  direction. Implemented by Graph and GraphSnapshot, which keep the arrays
+ *  on the Java heap, and by OffHeapGraph, which keeps them outside of it;
+ *  the search and MST code that takes a GraphStorage runs unchanged on all three.
+ */
+public interface GraphStorage {
+    /**
+     * Returns the number of nodes
+     * @return number of nodes
+     */
+    int numNodes();
+
+    /**
+     * Returns the number of edges, counting both directions of an edge
+     * @return number of edges
+     */
+    int numEdges();
+
+    /**
+     * Returns the id of the first edge of a node
+     * @param nodeId id of the node, or numNodes() for the end of the last node's edges
+     * @return edge id
+     */
+    int firstEdge(int nodeId);
+
+    /**
+     * Returns the neighbor a given edge leads to
+     * @param edge id of the edge
+     * @return node id of the neighbor
+     */
+    int target(int edge);
+
+    /**
+     * Returns the cost of a given edge
+     * @param edge id of the edge
+     * @return the cost
+     */
+    int cost(int edge);
+
+    /**
+     * Returns the x coordinate of the location of a node on the map (see CityNode.getLocation)
+     * @param nodeId id of the node
+     * @return x coordinate in pixels
+     */
+    int locationX(int nodeId);
+
+    /**
+     * Returns the y coordinate of the location of a node on the map (see CityNode.getLocation)
+     * @param nodeId id of the node
+     * @return y coordinate in pixels
+     */
+    int locationY(int nodeId);
+}
@@ -1,54 +1,88 @@
 package graph;
 
-import java.util.LinkedList;
-import java.util.Iterator;
+import java.nio.ByteBuffer;
 
-/** Custom implementation of a hash table using open hashing, separate chaining.
- *  Each key is a String (name of the city), each value is an integer (node id). */
+/** Custom implementation of a hash table using open addressing with linear probing.
+ *  Each key is a String (name of the city), each value is an integer (node id).
+ *  Keys, their hash codes and values are kept in three parallel arrays, so a
+ *  lookup is a few array reads and usually a single String.equals call.
+ *  The table doubles when it is half full, so probe sequences stay short
+ *  however many cities are inserted. */
 public class HashTable {
-	 // FILL IN CODE: add variables and methods
-    private LinkedList<HashEntry>[] table;
-    private int tableSize;
+    private static final double MAX_LOAD = 0.5; // the table grows when it is fuller than this
 
-    public HashTable(int arraySize) {
-        this.tableSize = arraySize;  // remove this later: TODO: make prime number function
-        this.table = new LinkedList[11]; // 11 is size for now, will change to be dynamic later
+    private String[] keys; // key in each slot, null if the slot is empty
+    private int[] hashes; // full hash code of the key in each slot
+    private int[] values; // node id of the key in each slot
+    private int size; // number of keys in the table
+    private int mask; // table length - 1; the table length is a power of two
 
-        // initialize table entries as null linked lists that store HashEntries
-        for(int i = 0; i < table.length; i++) {
-            table[i] = new LinkedList<HashEntry>();
+    /**
+     * Constructor
+     * @param arraySize expected number of keys; the table is sized so that
+     *                  this many keys fit without growing
+     */
+    public HashTable(int arraySize) {
+        int capacity = 16;
+        while (capacity * MAX_LOAD < arraySize) {
+            capacity *= 2;
         }
+        allocate(capacity);
     }
 
-
     /**
-     * Maps a given string to an integer
+     * Maps a given string to an integer: a polynomial hash (base 31) of the
+     * characters, followed by the murmur3 finalizer so that the low bits,
+     * which pick the slot, depend on every character
      * @param key string we want to map to an integer
-     * @return the compressed hash code for the given string
+     * @return the hash code for the given string
      */
-    private int hash(String key) {
-        int a = 33;
-        int hashCode = 0;
-        char c;
-        int power = key.length() - 1;
-
-        for(int i = 0; i < key.length(); i++) {
-            c = key.charAt(i);
-            hashCode = (int) c * (a^(power - i)) + hashCode;
+    private static int hash(String key) {
+        int h = 0;
+        for (int i = 0; i < key.length(); i++) {
+            h = 31 * h + key.charAt(i);
         }
-        hashCode = Math.abs(hashCode);
-        return hashCode % table.length;
+        return mix(h);
     }
 
     /**
-     * Inserts a key, nodeId pair into the hash table
+     * The murmur3 32-bit finalizer
+     * @param h a hash code
+     * @return the mixed hash code
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Inserts a key, nodeId pair into the hash table.
+     * If the key is already in the table, its node id is replaced.
      * @param key string we want to add
      * @param nodeId integer id of the key we are inserting
      */
     public void insert(String key, int nodeId) {
-        int hashvalue = hash(key);
-        HashEntry entry = new HashEntry(key, nodeId);
-        table[hashvalue].addFirst(entry);
+        int h = hash(key);
+        int slot = h & mask;
+
+        while (keys[slot] != null) {
+            if (hashes[slot] == h && keys[slot].equals(key)) {
+                values[slot] = nodeId;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        hashes[slot] = h;
+        values[slot] = nodeId;
+        size++;
+        if (size > keys.length * MAX_LOAD) {
+            resize();
+        }
     }
 
     /**
@@ -57,44 +91,110 @@ public class HashTable {
      * @return nodeId of the given string, returns -1 if string was not found.
      */
     public int find(String key) {
-        int nodeId = -1;
-        Iterator<HashEntry> iter;
-        HashEntry curr;
-        String currKey;
-        int hashvalue = hash(key);
-
-        iter = table[hashvalue].iterator();
-        curr = iter.next();
-        while (curr != null) {
-            currKey = curr.getKey();
-            if(currKey.equals(key)) {
-                nodeId = curr.getNodeId();
-                break;
+        int h = hash(key);
+        int slot = h & mask;
+
+        while (keys[slot] != null) {
+            if (hashes[slot] == h && keys[slot].equals(key)) {
+                return values[slot];
             }
-            curr = iter.next();
+            slot = (slot + 1) & mask;
         }
+        return -1;
+    }
+
+    /**
+     * Finds the node id of a key stored as bytes in a buffer, without creating
+     * a String. Each byte is one char (ISO-8859-1), so the hash is the same as
+     * the hash of the String with these chars.
+     * @param buffer the buffer that holds the key
+     * @param start index of the first byte of the key
+     * @param length number of bytes of the key
+     * @return nodeId of the key, returns -1 if the key was not found.
+     */
+    public int find(ByteBuffer buffer, int start, int length) {
+        int h = 0;
+        int slot;
+        String key;
 
-        if(nodeId == -1) {
-            System.out.println("The city you were searching for isn't in the table or it doesn't exist.");
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + (buffer.get(start + i) & 0xff);
         }
+        h = mix(h);
+        slot = h & mask;
+        while ((key = keys[slot]) != null) {
+            if (hashes[slot] == h && key.length() == length && sameChars(key, buffer, start)) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
 
-        return nodeId;
+    /**
+     * Compares the chars of a key with bytes of a buffer
+     * @return true if every char of the key equals the byte at the same offset
+     */
+    private static boolean sameChars(String key, ByteBuffer buffer, int start) {
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != (buffer.get(start + i) & 0xff)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
-     * Prints out our hash table. Each hash value will print on its own line.
+     * Returns the number of keys in the table
+     * @return number of keys
      */
-    public void print() {
-        for(int i = 0; i < table.length; i++) {
-            String nodes = "hash value: " + i + " nodes: ";
-            Iterator<HashEntry> iter = table[i].iterator();
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Doubles the table and inserts every key again
+     */
+    private void resize() {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldValues = values;
+        int slot;
+
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                slot = oldHashes[i] & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                hashes[slot] = oldHashes[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Allocates empty arrays of the given length
+     * @param capacity number of slots, a power of two
+     */
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
 
-            while (iter.hasNext()) {
-                String node = iter.next().toString();
-                nodes = nodes.concat(node);
+    /**
+     * Prints out our hash table. Each non-empty slot will print on its own line.
+     */
+    public void print() {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                System.out.println("slot: " + i + " node: " + keys[i] + " " + values[i] + "; ");
             }
-            System.out.println(nodes);
         }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package graph;
+
+/** A min-priority queue of node ids with int keys, indexed by node id so
+ *  that the key of a queued node can be decreased.
+ *  Node ids are in 0 .. numNodes - 1 for the numNodes the queue was created
+ *  with, and every node is in the queue at most once.
+ *  Dijkstra, AStar, ALT, BidirectionalDijkstra (one queue per direction),
+ *  TimeDependentDijkstra and PrimsMST take any implementation, see their
+ *  setQueue methods. MinHeap, PriorityQueue, DaryHeap and PairingHeap
+ *  accept any keys; RadixHeap needs keys that never drop below the last
+ *  removed one, and DialQueue keys that lie within a fixed spread of each other.
+ *
+ *  ContractionHierarchy keeps its private LongHeap instead: its witness
+ *  searches run from every neighbor of every contracted node and settle at
+ *  most a few hundred nodes each, so it inserts a node again rather than
+ *  decreasing its key, and skips the stale entry when it comes out. That
+ *  needs no position per node, and a query on the contracted graph
+ *  settles too few nodes for the choice of queue to matter.
+ */
+public interface IndexedMinQueue {
+    /**
+     * Adds a node that is not in the queue
+     * @param nodeId id of the node
+     * @param key the priority of the node
+     */
+    void insert(int nodeId, int key);
+
+    /**
+     * Lowers the key of a node that is in the queue
+     * @param nodeId id of the node
+     * @param key the new priority, not larger than the current one
+     */
+    void decreaseKey(int nodeId, int key);
+
+    /**
+     * Removes the node with the smallest key
+     * @return id of the removed node
+     */
+    int removeMin();
+
+    /**
+     * Whether the node is in the queue
+     * @param nodeId id of the node
+     * @return true if the node has been inserted and not removed yet
+     */
+    boolean contains(int nodeId);
+
+    /**
+     * Whether the queue is empty
+     * @return true if there are no nodes in the queue
+     */
+    boolean isEmpty();
+
+    /**
+     * Removes all nodes, so the queue can be used for another search
+     */
+    void clear();
+}
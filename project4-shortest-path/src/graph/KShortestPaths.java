@@ -0,0 +1,540 @@
+package graph;
+
+/** Class KShortestPaths. Yen's algorithm for the k shortest loopless paths
+ *  between two nodes, for showing alternative routes.
+ *
+ *  Yen's algorithm finds path i + 1 among deviations of the paths found so
+ *  far: for every spur node s of a path, it searches the shortest path from
+ *  s to the destination that avoids the nodes before s (the root) and the
+ *  next hops that the found paths with the same root already take. Three
+ *  things keep this far below k times n cold Dijkstra searches:
+ *
+ *  - One Dijkstra search from the destination builds a reverse shortest path
+ *    tree (all graphs are symmetric). Its costs are exact distances to the
+ *    destination in the unrestricted graph, so every spur search is an A*
+ *    search with a perfect heuristic; and as soon as the search settles a
+ *    node whose tree path to the destination avoids the root, that tree path
+ *    completes the spur path, so a spur search usually settles a handful of nodes.
+ *  - The found paths are kept in a prefix tree (trie). The children of the
+ *    trie node of a root are exactly the next hops to exclude, so the roots
+ *    of all paths share one structure and are never compared node by node.
+ *  - A path that deviates from its parent path at spur index d shares the
+ *    root of every earlier spur node with its parent, whose searches already
+ *    produced those deviations, so only spur nodes from d on are searched
+ *    (Lawler's refinement).
+ *
+ *  The paths are lists of node ids, origin first, like the ones of Dijkstra,
+ *  so Graph.getPath draws them; getAlternativePaths returns all but the
+ *  shortest one for GUIApp.
+ */
+
+import java.util.*;
+import java.awt.Point;
+
+public class KShortestPaths implements ShortestPathAlgorithm {
+    private Graph graph; // stores the graph of CityNode-s and edges connecting them, null for other storages
+    private GraphStorage storage; // the nodes and edges the searches run on
+    private int numNodes; // stores the number of nodes in the graph
+    private int k; // number of paths computeShortestPath(CityNode, CityNode) looks for
+    private List<List<Integer>> paths = null; // the paths of the last query, shortest first
+    private List<Integer> pathCosts = new ArrayList<>(); // the cost of each of these paths
+    private int numSettled; // number of nodes settled by the last query, in all searches
+    private int numSpurSearches; // number of spur searches of the last query
+
+    private SearchWorkspace reverseTree; // shortest path tree towards the destination of the query
+    private int destId; // destination of the current query
+
+    private int[] cost; // cost of the best known path from the spur node to each node
+    private int[] parent; // previous node on that path
+    private int[] stamp; // the spur search that last wrote cost and parent of each node
+    private int searchGeneration; // number of the current spur search
+    private IndexedMinQueue queue; // priority queue of the spur searches
+    private int[] rootMark; // rootMark[v] == rootGeneration if v is on the current root
+    private int rootGeneration; // number of the current path whose deviations are searched
+    private boolean[] clean; // whether the tree path of a node avoids the root, valid if cleanStamp matches
+    private int[] cleanStamp; // the spur search that computed clean for each node
+    private int[] walk; // scratch stack of the nodes on a tree path
+
+    private int[] trieLabel; // node id of each trie node; trie node 0 is the origin
+    private int[] trieFirstChild; // first child of each trie node, -1 if none
+    private int[] trieNextSibling; // next child of the same parent, -1 if none
+    private int trieSize; // number of trie nodes
+
+    /** Constructor
+     *
+     * @param graph graph that has already been loaded with Graph.loadGraph
+     * @param k number of paths computeShortestPath(CityNode, CityNode) looks for
+     */
+    public KShortestPaths(Graph graph, int k) {
+        this((GraphStorage) graph, k);
+    }
+
+    /** Constructor for any graph storage. Without a Graph there are no
+     *  CityNode-s, so only the methods that take node ids can be used.
+     *
+     * @param storage nodes and edges of the graph
+     * @param k number of paths computeShortestPath(CityNode, CityNode) looks for
+     */
+    public KShortestPaths(GraphStorage storage, int k) {
+        this.graph = storage instanceof Graph ? (Graph) storage : null;
+        this.storage = storage;
+        this.numNodes = storage.numNodes();
+        setK(k);
+        this.reverseTree = new SearchWorkspace(numNodes);
+        this.cost = new int[numNodes];
+        this.parent = new int[numNodes];
+        this.stamp = new int[numNodes];
+        this.queue = new DaryHeap(numNodes, 4);
+        this.rootMark = new int[numNodes];
+        this.clean = new boolean[numNodes];
+        this.cleanStamp = new int[numNodes];
+        this.walk = new int[numNodes];
+        this.trieLabel = new int[64];
+        this.trieFirstChild = new int[64];
+        this.trieNextSibling = new int[64];
+    }
+
+    /**
+     * Computes the k shortest paths between the origin and the destination
+     * and returns the shortest one; the others are available from
+     * getPaths and getAlternativePaths.
+     * @param origin source node
+     * @param destination destination node
+     * @return the ArrayList of nodeIds (of nodes on the shortest path),
+     * empty if the destination can not be reached from the origin
+     */
+    public List<Integer> computeShortestPath(CityNode origin, CityNode destination) {
+        computeKShortestPaths(origin, destination, k);
+        return paths.isEmpty() ? new ArrayList<>() : paths.get(0);
+    }
+
+    /**
+     * Returns the k shortest loopless paths between the origin and the destination
+     * @param origin source node
+     * @param destination destination node
+     * @param k number of paths
+     * @return up to k paths, shortest first, each a list of nodeIds compatible with Graph.getPath;
+     * fewer if the graph has fewer loopless paths, none if the destination can not be reached
+     */
+    public List<List<Integer>> computeKShortestPaths(CityNode origin, CityNode destination, int k) {
+        return computeKShortestPaths(getNodeId(origin), getNodeId(destination), k);
+    }
+
+    /**
+     * Returns the k shortest loopless paths between the origin and the destination
+     * @param originId node id of the origin
+     * @param destId node id of the destination
+     * @param k number of paths
+     * @return up to k paths, shortest first, each a list of node ids, origin first
+     * @throws IllegalArgumentException if k is smaller than 1
+     */
+    public List<List<Integer>> computeKShortestPaths(int originId, int destId, int k) {
+        java.util.PriorityQueue<Candidate> candidates; // deviations found so far, cheapest first
+        Set<Candidate> seen; // every path that was ever a candidate
+        Candidate path;
+
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1: " + k);
+        }
+        paths = new ArrayList<>();
+        pathCosts = new ArrayList<>();
+        numSpurSearches = 0;
+        this.destId = destId;
+        reverseTree.dijkstra(storage, destId, -1); // the graph is symmetric: parents lead to destId
+        numSettled = reverseTree.getNumSettled();
+        if (!reverseTree.isReached(originId)) {
+            return paths;
+        }
+
+        candidates = new java.util.PriorityQueue<>();
+        seen = new HashSet<>();
+        path = treePath(originId);
+        candidates.add(path);
+        seen.add(path);
+        trieSize = 0;
+        newTrieNode(originId);
+        while (paths.size() < k && !candidates.isEmpty()) {
+            path = candidates.poll();
+            paths.add(path.toList());
+            pathCosts.add(path.cost());
+            addToTrie(path.nodes);
+            if (paths.size() < k) {
+                addDeviations(path, candidates, seen);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Searches the deviations of a path at its spur nodes, from the index
+     * where it deviated from its parent path on, and adds new ones to the candidates
+     */
+    private void addDeviations(Candidate path, java.util.PriorityQueue<Candidate> candidates, Set<Candidate> seen) {
+        int[] nodes = path.nodes;
+        int trieNode = 0; // trie node of the root nodes[0 .. j]
+        int meet;
+        Candidate deviation;
+
+        rootGeneration++;
+        if (rootGeneration == 0) {
+            Arrays.fill(rootMark, 0);
+            rootGeneration = 1;
+        }
+        for (int i = 0; i < path.deviation; i++) {
+            rootMark[nodes[i]] = rootGeneration;
+            trieNode = trieChild(trieNode, nodes[i + 1]);
+        }
+        for (int j = path.deviation; j < nodes.length - 1; j++) {
+            if (j > path.deviation) {
+                trieNode = trieChild(trieNode, nodes[j]);
+            }
+            rootMark[nodes[j]] = rootGeneration; // no spur path may come back to the root or the spur node
+            meet = spurSearch(nodes[j], trieNode);
+            if (meet >= 0) {
+                deviation = spurPath(path, j, meet);
+                if (seen.add(deviation)) {
+                    candidates.add(deviation);
+                }
+            }
+        }
+    }
+
+    /**
+     * A* search from the spur node towards the destination that avoids the
+     * root and the next hops of the found paths with the same root, using the
+     * costs of the reverse tree as the heuristic. Stops at the first settled
+     * node whose tree path avoids the root: that tree path completes the
+     * shortest spur path.
+     * @param spurId id of the spur node
+     * @param trieNode trie node of the root that ends at the spur node
+     * @return the node where the spur path joins the reverse tree, -1 if there is no spur path
+     */
+    private int spurSearch(int spurId, int trieNode) {
+        int v;
+        int u;
+        int newCost;
+        int end;
+
+        numSpurSearches++;
+        searchGeneration++;
+        if (searchGeneration == 0) {
+            Arrays.fill(stamp, 0);
+            Arrays.fill(cleanStamp, 0);
+            searchGeneration = 1;
+        }
+        queue.clear();
+        stamp[spurId] = searchGeneration;
+        cost[spurId] = 0;
+        parent[spurId] = -1;
+        queue.insert(spurId, reverseTree.getCost(spurId));
+        while (!queue.isEmpty()) {
+            v = queue.removeMin();
+            numSettled++;
+            if (v != spurId && isClean(v)) {
+                return v;
+            }
+            end = storage.firstEdge(v + 1);
+            for (int e = storage.firstEdge(v); e < end; e++) {
+                u = storage.target(e);
+                if (rootMark[u] == rootGeneration || !reverseTree.isReached(u)
+                        || (v == spurId && isTrieChild(trieNode, u))) {
+                    continue; // on the root, cut off from the destination, or a next hop that is taken
+                }
+                newCost = cost[v] + storage.cost(e);
+                if (stamp[u] != searchGeneration) { // first time the search reaches u
+                    stamp[u] = searchGeneration;
+                    cost[u] = newCost;
+                    parent[u] = v;
+                    queue.insert(u, newCost + reverseTree.getCost(u));
+                } else if (queue.contains(u) && newCost < cost[u]) {
+                    cost[u] = newCost;
+                    parent[u] = v;
+                    queue.decreaseKey(u, newCost + reverseTree.getCost(u));
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether the reverse tree path from a node to the destination avoids the
+     * current root. The answers are remembered for the rest of the spur search.
+     * @param nodeId id of a node reached by the reverse tree
+     * @return true if no node of the tree path is on the root
+     */
+    private boolean isClean(int nodeId) {
+        int n = 0;
+        int v = nodeId;
+        boolean result;
+
+        while (true) {
+            if (rootMark[v] == rootGeneration) {
+                result = false;
+                break;
+            }
+            if (cleanStamp[v] == searchGeneration) {
+                result = clean[v];
+                break;
+            }
+            if (v == destId) {
+                result = true;
+                break;
+            }
+            walk[n++] = v;
+            v = reverseTree.getParent(v);
+        }
+        while (n > 0) {
+            v = walk[--n];
+            cleanStamp[v] = searchGeneration;
+            clean[v] = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the path from a node to the destination along the reverse tree, as a candidate
+     */
+    private Candidate treePath(int nodeId) {
+        int length = 0;
+        int[] nodes;
+        int[] costs;
+        int total = reverseTree.getCost(nodeId);
+
+        for (int v = nodeId; v != -1; v = reverseTree.getParent(v)) {
+            length++;
+        }
+        nodes = new int[length];
+        costs = new int[length];
+        length = 0;
+        for (int v = nodeId; v != -1; v = reverseTree.getParent(v)) {
+            nodes[length] = v;
+            costs[length++] = total - reverseTree.getCost(v);
+        }
+        return new Candidate(nodes, costs, 0);
+    }
+
+    /**
+     * Builds the deviation of a path at spur index j: the root of the path,
+     * the spur search path to the meeting node, and the reverse tree path from there
+     */
+    private Candidate spurPath(Candidate path, int j, int meet) {
+        int spurLength = 0; // nodes after the spur node up to the meeting node
+        int treeLength = 0; // nodes after the meeting node up to the destination
+        int rootCost = path.costs[j];
+        int meetCost = rootCost + cost[meet];
+        int total = meetCost + reverseTree.getCost(meet);
+        int[] nodes;
+        int[] costs;
+        int i;
+
+        for (int v = meet; v != path.nodes[j]; v = parent[v]) {
+            spurLength++;
+        }
+        for (int v = reverseTree.getParent(meet); v != -1; v = reverseTree.getParent(v)) {
+            treeLength++;
+        }
+        nodes = Arrays.copyOf(path.nodes, j + 1 + spurLength + treeLength);
+        costs = Arrays.copyOf(path.costs, nodes.length);
+        i = j + spurLength;
+        for (int v = meet; v != path.nodes[j]; v = parent[v]) {
+            nodes[i] = v;
+            costs[i--] = rootCost + cost[v];
+        }
+        i = j + spurLength + 1;
+        for (int v = reverseTree.getParent(meet); v != -1; v = reverseTree.getParent(v)) {
+            nodes[i] = v;
+            costs[i++] = total - reverseTree.getCost(v);
+        }
+        return new Candidate(nodes, costs, j);
+    }
+
+    /**
+     * Adds a path to the trie of found paths
+     */
+    private void addToTrie(int[] nodes) {
+        int trieNode = 0;
+        int child;
+
+        for (int i = 1; i < nodes.length; i++) {
+            child = trieChild(trieNode, nodes[i]);
+            if (child == -1) {
+                child = newTrieNode(nodes[i]);
+                trieNextSibling[child] = trieFirstChild[trieNode];
+                trieFirstChild[trieNode] = child;
+            }
+            trieNode = child;
+        }
+    }
+
+    /**
+     * Returns the child of a trie node with the given node id
+     * @return the child, -1 if there is none
+     */
+    private int trieChild(int trieNode, int nodeId) {
+        for (int c = trieFirstChild[trieNode]; c != -1; c = trieNextSibling[c]) {
+            if (trieLabel[c] == nodeId) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isTrieChild(int trieNode, int nodeId) {
+        return trieChild(trieNode, nodeId) != -1;
+    }
+
+    private int newTrieNode(int nodeId) {
+        if (trieSize == trieLabel.length) {
+            trieLabel = Arrays.copyOf(trieLabel, trieSize * 2);
+            trieFirstChild = Arrays.copyOf(trieFirstChild, trieSize * 2);
+            trieNextSibling = Arrays.copyOf(trieNextSibling, trieSize * 2);
+        }
+        trieLabel[trieSize] = nodeId;
+        trieFirstChild[trieSize] = -1;
+        trieNextSibling[trieSize] = -1;
+        return trieSize++;
+    }
+
+    /**
+     * Returns the paths of the last query
+     * @return the paths, shortest first, or null before the first query
+     */
+    public List<List<Integer>> getPaths() {
+        return paths;
+    }
+
+    /**
+     * Returns the costs of the paths of the last query
+     * @return the cost of each path, in the order of getPaths
+     */
+    public List<Integer> getPathCosts() {
+        return pathCosts;
+    }
+
+    /**
+     * Sets the number of paths computeShortestPath(CityNode, CityNode) looks for
+     * @param k number of paths
+     * @throws IllegalArgumentException if k is smaller than 1
+     */
+    public void setK(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1: " + k);
+        }
+        this.k = k;
+    }
+
+    /**
+     * Returns the number of paths computeShortestPath(CityNode, CityNode) looks for
+     * @return number of paths
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Returns the number of nodes settled by the last query: the nodes of the
+     * reverse tree plus the nodes settled by all spur searches
+     * @return number of settled nodes
+     */
+    public int getNumSettled() {
+        return numSettled;
+    }
+
+    /**
+     * Returns the number of spur searches run by the last query
+     * @return number of spur searches
+     */
+    public int getNumSpurSearches() {
+        return numSpurSearches;
+    }
+
+    /**
+     * Gets the nodeId of a given CityNode
+     * @param cityNode the CityNode whose nodeId we want
+     * @return the nodeId of the cityNode
+     */
+    private int getNodeId(CityNode cityNode) {
+        if (graph == null) {
+            throw new UnsupportedOperationException("The graph has no city names, use node ids");
+        }
+        return graph.getId(cityNode);
+    }
+
+    /**
+     * Return the shortest of the paths as a 2D array of Points (see Graph.getPath)
+     * @return 2D array of points, null if there is no path to show
+     */
+    public Point[][] getPath() {
+        if (paths == null || paths.isEmpty())
+            return null;
+        return graph.getPath(paths.get(0));
+    }
+
+    /**
+     * Returns the other paths of the last query, second shortest first,
+     * each as a 2D array of Points (see Graph.getPath)
+     * @return the alternative paths, empty if there are none
+     */
+    public List<Point[][]> getAlternativePaths() {
+        List<Point[][]> alternatives = new ArrayList<>();
+
+        if (paths != null) {
+            for (int i = 1; i < paths.size(); i++) {
+                alternatives.add(graph.getPath(paths.get(i)));
+            }
+        }
+        return alternatives;
+    }
+
+    /** Forget the paths of the last query.
+     *  Called when the user presses Reset button.
+     */
+    public void resetPath() {
+        paths = null;
+    }
+
+    /**
+     * A path from the origin to the destination: its nodes, the cost from the
+     * origin to each of them, and the index of the spur node at which it
+     * deviates from the path it was derived from (0 for the shortest path).
+     * Candidates are equal if they have the same nodes.
+     */
+    private static class Candidate implements Comparable<Candidate> {
+        final int[] nodes;
+        final int[] costs;
+        final int deviation;
+
+        Candidate(int[] nodes, int[] costs, int deviation) {
+            this.nodes = nodes;
+            this.costs = costs;
+            this.deviation = deviation;
+        }
+
+        int cost() {
+            return costs[costs.length - 1];
+        }
+
+        List<Integer> toList() {
+            List<Integer> list = new ArrayList<>(nodes.length);
+            for (int v : nodes) {
+                list.add(v);
+            }
+            return list;
+        }
+
+        public int compareTo(Candidate other) {
+            if (cost() != other.cost()) {
+                return Integer.compare(cost(), other.cost());
+            }
+            return Integer.compare(nodes.length, other.nodes.length);
+        }
+
+        public boolean equals(Object o) {
+            return o instanceof Candidate && Arrays.equals(nodes, ((Candidate) o).nodes);
+        }
+
+        public int hashCode() {
+            return Arrays.hashCode(nodes);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package graph;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Class KruskalMST. Kruskal's algorithm for the minimum spanning tree.
+ *
+ *  Every edge is packed into a long whose high half is its cost and whose
+ *  low half is its index (see EdgeList.key), and the array is sorted with
+ *  Arrays.parallelSort, which uses all cores. The edges are then taken in
+ *  order of cost, and an edge joins the tree if its ends are in different
+ *  trees of a union-find structure (union by size, path halving). The scan
+ *  stops once numNodes - 1 edges are taken.
+ *
+ *  On a graph that is not connected the result is a minimum spanning forest:
+ *  one tree per connected component.
+ */
+public class KruskalMST implements SpanningTreeAlgorithm {
+    private Graph graph; // the graph of CityNode-s, null for an OffHeapGraph
+    private GraphStorage storage; // the nodes and edges the algorithm runs on
+    private int numNodes; // number of nodes in the graph
+    private List<PrimsMST.Edges> minSpanningTree = null; // edges of the last computed tree
+    private long totalCost; // total cost of the edges of the last computed tree
+
+    /**
+     * Constructor
+     * @param storage nodes and edges of the graph, for example a Graph or an OffHeapGraph
+     */
+    public KruskalMST(GraphStorage storage) {
+        this.graph = storage instanceof Graph ? (Graph) storage : null;
+        this.storage = storage;
+        this.numNodes = storage.numNodes();
+    }
+
+    /**
+     * Computes the minimum spanning tree (a forest if the graph is not connected)
+     * @return the edges of the tree
+     */
+    public List<PrimsMST.Edges> computeShortestPath() {
+        kruskal();
+        return minSpanningTree;
+    }
+
+    /**
+     * Runs Kruskal's algorithm
+     */
+    public void kruskal() {
+        EdgeList edges = EdgeList.of(storage);
+        long[] sorted = new long[edges.size];
+        int[] parent = new int[numNodes]; // union-find parent, parent[r] == r for a root
+        int[] size = new int[numNodes]; // number of nodes in the tree of each root
+        int i;
+        int a;
+        int b;
+
+        for (i = 0; i < edges.size; i++) {
+            sorted[i] = edges.key(i);
+        }
+        Arrays.parallelSort(sorted);
+        for (int v = 0; v < numNodes; v++) {
+            parent[v] = v;
+            size[v] = 1;
+        }
+
+        minSpanningTree = new ArrayList<>(Math.max(0, numNodes - 1));
+        totalCost = 0;
+        for (int k = 0; k < edges.size && minSpanningTree.size() < numNodes - 1; k++) {
+            i = (int) sorted[k]; // the low half is the index of the edge
+            a = find(parent, edges.from[i]);
+            b = find(parent, edges.to[i]);
+            if (a != b) {
+                if (size[a] < size[b]) { // hang the smaller tree under the larger one
+                    int t = a;
+                    a = b;
+                    b = t;
+                }
+                parent[b] = a;
+                size[a] += size[b];
+                minSpanningTree.add(new PrimsMST.Edges(edges.from[i], edges.to[i]));
+                totalCost += edges.cost[i];
+            }
+        }
+    }
+
+    /**
+     * Finds the root of the tree of a node, halving the path on the way
+     */
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    /**
+     * Returns the total cost of the edges of the last computed tree
+     * @return the cost of the tree
+     */
+    public long getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Return the tree as a 2D array of Points (see SpanningTreeAlgorithm.getPath)
+     * @return 2D array of points
+     */
+    public Point[][] getPath() {
+        if (minSpanningTree == null)
+            return null;
+        return PrimsMST.getPath(graph, storage, minSpanningTree);
+    }
+
+    /** Set the tree to null.
+     *  Called when the user presses Reset button.
+     */
+    public void resetPath() {
+        minSpanningTree = null;
+    }
+}
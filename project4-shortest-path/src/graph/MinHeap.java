@@ -1,20 +1,31 @@
 package graph;
 
-public class MinHeap {
+import java.util.Arrays;
+
+public class MinHeap implements IndexedMinQueue {
     private Elem[] heap;
     private int size;
     private int[] pos;
 
     public MinHeap(int numNodes) {
         this.heap = new Elem[numNodes];
-        this.size = numNodes;
+        this.size = 0;
         this.pos = new int[numNodes];
+        Arrays.fill(pos, -1); // -1 means the node was never inserted
     }
 
 
+    /**
+     * Adds a node at the end of the heap and bubbles it up,
+     * so the heap can be seeded with only some of the nodes.
+     * @param nodeId id of the node to insert
+     * @param cost the priority of the node
+     */
     public void insert(int nodeId, int cost) {
-        heap[nodeId] = new Elem(nodeId, cost);
-        pos[nodeId] = nodeId;
+        heap[size] = new Elem(nodeId, cost);
+        pos[nodeId] = size;
+        size++;
+        reduceKey(nodeId, cost);
     }
 
     public int removeMin() {
@@ -27,8 +38,8 @@ public class MinHeap {
         heap[0] = heap[size - 1];
         heap[size - 1] = root;
 
-        pos[root.getNodeId()] = size - 1;
         pos[heap[0].getNodeId()] = 0;
+        pos[root.getNodeId()] = -1; // removed; a stale index could look valid once the heap grows again
 
         size--;
         pushdown(0);
@@ -69,6 +80,25 @@ public class MinHeap {
 
     }
 
+    /**
+     * Returns the cost of the element with the minimum cost without removing it
+     * @return the smallest cost in the heap, Integer.MAX_VALUE if the heap is empty
+     */
+    public int peekMinCost() {
+        if (isEmpty()) {
+            return Integer.MAX_VALUE;
+        }
+        return heap[0].getCost();
+    }
+
+    /**
+     * Returns the number of nodes in the heap
+     * @return the size of the heap
+     */
+    public int getSize() {
+        return size;
+    }
+
     public boolean isEmpty() {
         if (size <= 0) {
             return true;
@@ -78,8 +108,26 @@ public class MinHeap {
         }
     }
 
+    public void decreaseKey(int nodeId, int newCost) {
+        reduceKey(nodeId, newCost);
+    }
+
+    public boolean contains(int nodeId) {
+        return isInHeap(nodeId);
+    }
+
+    /**
+     * Removes all nodes from the heap; only touches the nodes that are still in it
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[heap[i].getNodeId()] = -1;
+        }
+        size = 0;
+    }
+
     public boolean isInHeap(int vertex) {
-        if (pos[vertex] < size) {
+        if ((pos[vertex] >= 0) && (pos[vertex] < size)) {
             return true;
         } else {
             return false;
@@ -0,0 +1,155 @@
+package graph;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** Computes shortest path costs from many origins at once.
+ *  Each origin gets one full single-source Dijkstra's search; the searches are
+ *  independent, so they run in parallel as ForkJoin tasks that split the list
+ *  of origins in halves. Each task borrows a SearchWorkspace from a pool, so
+ *  the number of workspaces is bounded by the parallelism of the pool.
+ *  The results are written into a compact DistanceMatrix; asking for only
+ *  some destinations, and leaving out the parent rows, keeps it small.
+ */
+public class MultiSourceShortestPaths {
+    private final GraphSnapshot snapshot; // the shared graph
+    private final ForkJoinPool pool; // runs the searches
+    private final ConcurrentLinkedQueue<SearchWorkspace> idleWorkspaces; // workspaces not used by any task
+
+    /**
+     * Constructor
+     * @param snapshot the graph to search
+     * @param pool the pool that runs the searches, e.g. ForkJoinPool.commonPool()
+     */
+    public MultiSourceShortestPaths(GraphSnapshot snapshot, ForkJoinPool pool) {
+        this.snapshot = snapshot;
+        this.pool = pool;
+        this.idleWorkspaces = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Computes the costs from every origin to every node of the graph, with parents
+     * @param origins the origins
+     * @return a matrix with one row per origin and one column per node id
+     * @throws IllegalArgumentException if a city is not in the graph
+     */
+    public DistanceMatrix compute(List<CityNode> origins) {
+        int[] allNodes = new int[snapshot.numNodes()];
+        for (int v = 0; v < allNodes.length; v++) {
+            allNodes[v] = v;
+        }
+        return compute(toIds(origins), allNodes, true);
+    }
+
+    /**
+     * Computes the costs from every origin to the selected destinations
+     * @param origins the origins
+     * @param destinations the destinations
+     * @param withParents whether to keep the parent of every node for every origin,
+     *                    needed to rebuild the paths (numNodes ints per origin)
+     * @return a matrix with one row per origin and one column per destination
+     * @throws IllegalArgumentException if a city is not in the graph
+     */
+    public DistanceMatrix compute(List<CityNode> origins, List<CityNode> destinations, boolean withParents) {
+        return compute(toIds(origins), toIds(destinations), withParents);
+    }
+
+    /**
+     * Computes the costs from every origin to the selected destinations
+     * @param originIds node ids of the origins
+     * @param destIds node ids of the destinations
+     * @param withParents whether to keep the parent of every node for every origin
+     * @return a matrix with one row per origin and one column per destination
+     * @throws IllegalArgumentException if a node id is out of range
+     */
+    public DistanceMatrix compute(int[] originIds, int[] destIds, boolean withParents) {
+        checkNodeIds(originIds);
+        checkNodeIds(destIds);
+        DistanceMatrix matrix = new DistanceMatrix(originIds.clone(), destIds.clone(), snapshot.numNodes(), withParents);
+        pool.invoke(new SearchTask(matrix, 0, originIds.length));
+        return matrix;
+    }
+
+    /**
+     * Runs the search of one origin and fills in its row of the matrix
+     * @param matrix the result
+     * @param row index of the origin
+     */
+    private void searchRow(DistanceMatrix matrix, int row) {
+        SearchWorkspace workspace = idleWorkspaces.poll();
+        if (workspace == null) {
+            workspace = new SearchWorkspace(snapshot.numNodes());
+        }
+        try {
+            workspace.dijkstra(snapshot, matrix.getOriginId(row), -1);
+            for (int column = 0; column < matrix.numDestinations(); column++) {
+                matrix.setCost(row, column, workspace.getCost(matrix.getDestinationId(column)));
+            }
+            if (matrix.hasParents()) {
+                for (int v = 0; v < snapshot.numNodes(); v++) {
+                    matrix.setParent(row, v, workspace.getParent(v));
+                }
+            }
+        } finally {
+            idleWorkspaces.offer(workspace);
+        }
+    }
+
+    /**
+     * Converts city nodes to node ids
+     * @param cities list of city nodes
+     * @return their node ids
+     * @throws IllegalArgumentException if a city is not in the graph
+     */
+    private int[] toIds(List<CityNode> cities) {
+        int[] ids = new int[cities.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = snapshot.getId(cities.get(i));
+            if (ids[i] == -1) {
+                throw new IllegalArgumentException("The city " + cities.get(i).getCity() + " is not in the graph");
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Throws an exception before any search starts if a node id is out of range
+     */
+    private void checkNodeIds(int[] nodeIds) {
+        for (int nodeId : nodeIds) {
+            if (nodeId < 0 || nodeId >= snapshot.numNodes()) {
+                throw new IllegalArgumentException("No such node: " + nodeId);
+            }
+        }
+    }
+
+    /**
+     * Private inner class: a ForkJoin task for the rows from .. to - 1.
+     * Splits itself in halves until it has a single row.
+     */
+    private class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final DistanceMatrix matrix;
+        private final int from;
+        private final int to;
+
+        SearchTask(DistanceMatrix matrix, int from, int to) {
+            this.matrix = matrix;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                searchRow(matrix, from);
+            } else if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SearchTask(matrix, from, middle), new SearchTask(matrix, middle, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/** A graph whose CSR arrays and node locations live outside the Java heap.
+ *
+ *  Every array is held in direct or memory-mapped ByteBuffers of at most
+ *  1 GB each, so a graph can be larger than the heap and than the 2 GB limit
+ *  of a single buffer, and the garbage collector never scans or copies it:
+ *  the heap only holds a few buffer objects, whatever the size of the graph.
+ *  Edge ids are ints, so a graph can have up to 2^31 - 1 edges (16 GB of
+ *  targets and costs).
+ *
+ *  open maps the CSR sections of the BinaryGraphFile snapshot of a graph
+ *  file, which costs neither heap nor direct memory; the operating system
+ *  pages them in as the searches touch them. Only the node locations are
+ *  computed into direct buffers (8 bytes per node). copyOf copies a graph
+ *  into direct buffers, which count against -XX:MaxDirectMemorySize.
+ *
+ *  The snapshot has to be written first, by writeSnapshot or by
+ *  Graph.loadGraph. Both parse the text file into a Graph on the heap, so
+ *  that step needs a heap that holds the whole graph, once; open itself
+ *  never loads the graph on the heap, and fails if there is no up-to-date,
+ *  valid snapshot.
+ *
+ *  An OffHeapGraph has no city names or CityNode objects: engines run on it
+ *  through GraphStorage and node ids, for example with
+ *  Dijkstra.computeShortestPath(int, int, int[]) or PrimsMST.
+ *  It is never modified, so any number of threads can read it.
+ */
+public final class OffHeapGraph implements GraphStorage {
+    private static final int CHUNK_BITS = 28; // 2^28 ints = 1 GB per buffer
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final int numNodes; // total number of nodes
+    private final int numEdges; // total number of edges, counting both directions
+    private final IntBuffer[] offsets; // CSR offsets, numNodes + 1 entries
+    private final IntBuffer[] targets; // CSR targets, numEdges entries
+    private final IntBuffer[] costs; // CSR costs, numEdges entries
+    private final IntBuffer[] locationsX; // x coordinate of the location of each node
+    private final IntBuffer[] locationsY; // y coordinate of the location of each node
+
+    private OffHeapGraph(int numNodes, int numEdges, IntBuffer[] offsets, IntBuffer[] targets, IntBuffer[] costs,
+                         IntBuffer[] locationsX, IntBuffer[] locationsY) {
+        this.numNodes = numNodes;
+        this.numEdges = numEdges;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.costs = costs;
+        this.locationsX = locationsX;
+        this.locationsY = locationsY;
+    }
+
+    /**
+     * Maps the binary snapshot of a graph file. The snapshot counts as up to date when the
+     * length and the last modified time of the text file match, see open(String, boolean).
+     * @param filename name of the text file that has nodes and edges
+     * @return the graph
+     * @throws IOException if the files can not be read, or there is no snapshot that is up to date
+     * and whose CSR sections form a valid graph (see isValid); writeSnapshot writes it again
+     */
+    public static OffHeapGraph open(String filename) throws IOException {
+        return open(filename, false);
+    }
+
+    /**
+     * Maps the binary snapshot of a graph file
+     * @param filename name of the text file that has nodes and edges
+     * @param deepCheck whether to also compare the CRC32 of the text file and of the snapshot with
+     * the ones the snapshot recorded, which reads both files in full
+     * @return the graph
+     * @throws IOException if the files can not be read, or there is no snapshot that is up to date
+     * and whose CSR sections form a valid graph (see isValid); writeSnapshot writes it again
+     */
+    public static OffHeapGraph open(String filename, boolean deepCheck) throws IOException {
+        Path source = Paths.get(filename);
+        Path snapshot = Paths.get(filename + BinaryGraphFile.SUFFIX);
+
+        Files.size(source); // fails if the text file is missing
+        if (Files.isRegularFile(snapshot)) {
+            try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+                BinaryGraphFile.Layout layout = BinaryGraphFile.readLayout(channel, source, deepCheck);
+                if (layout != null) {
+                    OffHeapGraph graph = map(channel, layout);
+                    if (graph.isValid()) {
+                        return graph;
+                    }
+                }
+            }
+        }
+        throw new IOException("There is no up-to-date, valid snapshot " + snapshot + "; write it first with"
+                + " OffHeapGraph.writeSnapshot(\"" + filename + "\"), which loads the graph on the heap once");
+    }
+
+    /**
+     * Parses a graph file and writes its binary snapshot, replacing a stale or damaged one,
+     * so that open can map it. The graph is built on the heap while the snapshot is written.
+     * @param filename name of the text file that has nodes and edges
+     * @throws IOException if the text file can not be read or the snapshot can not be written
+     */
+    public static void writeSnapshot(String filename) throws IOException {
+        GraphBuilder builder = GraphFileParser.parse(filename);
+        Graph graph = new Graph();
+
+        builder.buildInto(graph);
+        BinaryGraphFile.save(filename, graph, builder.getXCoords(), builder.getYCoords());
+    }
+
+    /**
+     * Copies a graph into direct buffers
+     * @param graph the graph to copy
+     * @return the copy
+     */
+    public static OffHeapGraph copyOf(GraphStorage graph) {
+        int numNodes = graph.numNodes();
+        int numEdges = graph.numEdges();
+        IntBuffer[] offsets = allocate(numNodes + 1L);
+        IntBuffer[] targets = allocate(numEdges);
+        IntBuffer[] costs = allocate(numEdges);
+        IntBuffer[] locationsX = allocate(numNodes);
+        IntBuffer[] locationsY = allocate(numNodes);
+
+        for (int v = 0; v <= numNodes; v++) {
+            put(offsets, v, graph.firstEdge(v));
+        }
+        for (int e = 0; e < numEdges; e++) {
+            put(targets, e, graph.target(e));
+            put(costs, e, graph.cost(e));
+        }
+        for (int v = 0; v < numNodes; v++) {
+            put(locationsX, v, graph.locationX(v));
+            put(locationsY, v, graph.locationY(v));
+        }
+        return new OffHeapGraph(numNodes, numEdges, offsets, targets, costs, locationsX, locationsY);
+    }
+
+    /**
+     * Maps the CSR sections of a snapshot, and converts its coordinates into
+     * locations in direct buffers, the way CityNode does
+     */
+    private static OffHeapGraph map(FileChannel channel, BinaryGraphFile.Layout layout) throws IOException {
+        int numNodes = layout.numNodes;
+        IntBuffer[] locationsX = allocate(numNodes);
+        IntBuffer[] locationsY = allocate(numNodes);
+        DoubleBuffer x;
+        DoubleBuffer y;
+        int count;
+
+        for (int start = 0; start < numNodes; start += CHUNK_SIZE / 2) { // map at most 1 GB of doubles at a time
+            count = Math.min(CHUNK_SIZE / 2, numNodes - start);
+            x = channel.map(FileChannel.MapMode.READ_ONLY, layout.xPosition + 8L * start, 8L * count)
+                    .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            y = channel.map(FileChannel.MapMode.READ_ONLY, layout.yPosition + 8L * start, 8L * count)
+                    .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            for (int i = 0; i < count; i++) { // same projection as the CityNode constructor
+                put(locationsX, start + i, (int) (507 * x.get(i) / 7.0));
+                put(locationsY, start + i, (int) (289 - 289 * y.get(i) / 4.0));
+            }
+        }
+        return new OffHeapGraph(numNodes, layout.numEdges,
+                map(channel, layout.offsetsPosition, numNodes + 1L),
+                map(channel, layout.targetsPosition, layout.numEdges),
+                map(channel, layout.costsPosition, layout.numEdges),
+                locationsX, locationsY);
+    }
+
+    /**
+     * Checks the CSR sections in one sequential pass, as BinaryGraphFile does
+     * for the arrays it loads: the offsets start at 0, never decrease and end
+     * at numEdges, every target is a node id and no cost is negative
+     * @return true if the sections form a valid graph
+     */
+    private boolean isValid() {
+        int previous = 0;
+        int value;
+
+        if (get(offsets, 0) != 0 || get(offsets, numNodes) != numEdges) {
+            return false;
+        }
+        for (IntBuffer chunk : offsets) {
+            for (int i = 0; i < chunk.limit(); i++) {
+                value = chunk.get(i);
+                if (value < previous) {
+                    return false;
+                }
+                previous = value;
+            }
+        }
+        for (int c = 0; c < targets.length; c++) {
+            IntBuffer targetChunk = targets[c];
+            IntBuffer costChunk = costs[c];
+            for (int i = 0; i < targetChunk.limit(); i++) {
+                value = targetChunk.get(i);
+                if (value < 0 || value >= numNodes || costChunk.get(i) < 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Maps a section of ints of a file, one chunk per buffer
+     */
+    private static IntBuffer[] map(FileChannel channel, long position, long length) throws IOException {
+        IntBuffer[] chunks = new IntBuffer[numChunks(length)];
+        for (int c = 0; c < chunks.length; c++) {
+            long count = Math.min(CHUNK_SIZE, length - ((long) c << CHUNK_BITS));
+            chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, position + 4L * ((long) c << CHUNK_BITS), 4 * count)
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+        return chunks;
+    }
+
+    /**
+     * Allocates direct buffers for the given number of ints, one chunk per buffer
+     */
+    private static IntBuffer[] allocate(long length) {
+        IntBuffer[] chunks = new IntBuffer[numChunks(length)];
+        for (int c = 0; c < chunks.length; c++) {
+            int count = (int) Math.min(CHUNK_SIZE, length - ((long) c << CHUNK_BITS));
+            chunks[c] = ByteBuffer.allocateDirect(4 * count).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+        return chunks;
+    }
+
+    private static int numChunks(long length) {
+        return (int) ((length + CHUNK_MASK) >>> CHUNK_BITS);
+    }
+
+    private static void put(IntBuffer[] chunks, int index, int value) {
+        chunks[index >>> CHUNK_BITS].put(index & CHUNK_MASK, value);
+    }
+
+    private static int get(IntBuffer[] chunks, int index) {
+        return chunks[index >>> CHUNK_BITS].get(index & CHUNK_MASK);
+    }
+
+    // GraphStorage: every access is an absolute get on the chunk that holds the index
+
+    public int numNodes() {
+        return numNodes;
+    }
+
+    public int numEdges() {
+        return numEdges;
+    }
+
+    public int firstEdge(int nodeId) {
+        return get(offsets, nodeId);
+    }
+
+    public int target(int edge) {
+        return get(targets, edge);
+    }
+
+    public int cost(int edge) {
+        return get(costs, edge);
+    }
+
+    public int locationX(int nodeId) {
+        return get(locationsX, nodeId);
+    }
+
+    public int locationY(int nodeId) {
+        return get(locationsY, nodeId);
+    }
+}
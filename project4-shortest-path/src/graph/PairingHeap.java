@@ -0,0 +1,166 @@
+package graph;
+
+import java.util.Arrays;
+
+/** An indexed pairing heap over int arrays.
+ *
+ *  The heap is a tree in which every node's key is at most the keys of its
+ *  children; the children of a node form a doubly linked list. insert and
+ *  decreaseKey are O(1): the node (cut from its parent, for decreaseKey) is
+ *  melded with the root. removeMin melds the children of the root in two
+ *  passes, left to right in pairs and then right to left, which is amortized
+ *  O(log n). Few decreaseKey calls settle deep in the tree, which is why
+ *  pairing heaps do well on graphs where a node's key drops often.
+ *
+ *  The links are int arrays indexed by node id, and the two passes use a
+ *  scratch stack of node ids instead of recursion, so nothing is allocated
+ *  after the constructor.
+ */
+public class PairingHeap implements IndexedMinQueue {
+    private static final int NONE = -1; // no node
+
+    private int[] keys; // key of each node in the heap
+    private int[] child; // leftmost child of each node, NONE if it has none
+    private int[] sibling; // next sibling of each node, NONE for the last child
+    private int[] prev; // previous sibling of each node, or its parent for the leftmost child
+    private boolean[] queued; // whether each node is in the heap
+    private int[] stack; // scratch space for removeMin and clear
+    private int root = NONE; // node with the smallest key
+    private int size; // number of nodes in the heap
+
+    /**
+     * Constructor
+     * @param numNodes number of nodes of the graph
+     */
+    public PairingHeap(int numNodes) {
+        keys = new int[numNodes];
+        child = new int[numNodes];
+        sibling = new int[numNodes];
+        prev = new int[numNodes];
+        queued = new boolean[numNodes];
+        stack = new int[numNodes];
+        Arrays.fill(child, NONE);
+    }
+
+    public void insert(int nodeId, int key) {
+        keys[nodeId] = key;
+        child[nodeId] = NONE;
+        sibling[nodeId] = NONE;
+        prev[nodeId] = NONE;
+        queued[nodeId] = true;
+        root = (root == NONE) ? nodeId : meld(root, nodeId);
+        size++;
+    }
+
+    public void decreaseKey(int nodeId, int key) {
+        int p;
+
+        keys[nodeId] = key;
+        if (nodeId == root) {
+            return;
+        }
+        p = prev[nodeId]; // cut the subtree of the node from its parent
+        if (child[p] == nodeId) {
+            child[p] = sibling[nodeId];
+        } else {
+            sibling[p] = sibling[nodeId];
+        }
+        if (sibling[nodeId] != NONE) {
+            prev[sibling[nodeId]] = p;
+        }
+        sibling[nodeId] = NONE;
+        prev[nodeId] = NONE;
+        root = meld(root, nodeId);
+    }
+
+    /**
+     * Removes the node with the smallest key
+     * @return id of the removed node, -1 if the heap is empty
+     */
+    public int removeMin() {
+        int min = root;
+        int a;
+        int b;
+        int next;
+        int top = 0;
+
+        if (min == NONE) {
+            return -1;
+        }
+        a = child[min];
+        while (a != NONE) { // first pass: meld the children in pairs, left to right
+            b = sibling[a];
+            next = (b == NONE) ? NONE : sibling[b];
+            sibling[a] = NONE;
+            prev[a] = NONE;
+            if (b != NONE) {
+                sibling[b] = NONE;
+                prev[b] = NONE;
+                a = meld(a, b);
+            }
+            stack[top++] = a;
+            a = next;
+        }
+        root = (top == 0) ? NONE : stack[--top];
+        while (top > 0) { // second pass: meld the pairs into one tree, right to left
+            root = meld(stack[--top], root);
+        }
+        child[min] = NONE;
+        queued[min] = false;
+        size--;
+        return min;
+    }
+
+    public boolean contains(int nodeId) {
+        return queued[nodeId];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all nodes; only touches the nodes that are still in the heap
+     */
+    public void clear() {
+        int top = 0;
+        int v;
+
+        if (root != NONE) {
+            stack[top++] = root;
+        }
+        while (top > 0) {
+            v = stack[--top];
+            for (int c = child[v]; c != NONE; c = sibling[c]) {
+                stack[top++] = c;
+            }
+            child[v] = NONE;
+            queued[v] = false;
+        }
+        root = NONE;
+        size = 0;
+    }
+
+    /**
+     * Makes the root with the larger key the leftmost child of the other one
+     * @param a a root
+     * @param b another root
+     * @return the root of the melded tree
+     */
+    private int meld(int a, int b) {
+        int t;
+
+        if (keys[b] < keys[a]) {
+            t = a;
+            a = b;
+            b = t;
+        }
+        sibling[b] = child[a];
+        if (child[a] != NONE) {
+            prev[child[a]] = b;
+        }
+        prev[b] = a;
+        child[a] = b;
+        return a;
+    }
+}
@@ -19,10 +19,10 @@ public class PrimGUIApp extends JFrame {
 
     /**
      * Constructor of GUIApp
-     * @param algo Reference to Dijkstra object
+     * @param algo the engine that computes the MST, for example PrimsMST or KruskalMST
      * @param graph Reference to the graph
      */
-    public PrimGUIApp(PrimsMST algo, Graph graph) {
+    public PrimGUIApp(SpanningTreeAlgorithm algo, Graph graph) {
         // Creating a window
         JFrame frame = new JFrame("USA Map");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -41,7 +41,7 @@ public class PrimGUIApp extends JFrame {
         private static final long serialVersionUID = 1L;
         public final static int RAD = 3;
 
-        private PrimsMST algo; // Dijkstra's object
+        private SpanningTreeAlgorithm algo; // the engine that computes the MST
         private Graph graph; // Graph
         private CityNode origin, destination; // two vertices clicked by the user
         private JButton buttonReset, buttonQuit; // buttons
@@ -50,10 +50,10 @@ public class PrimGUIApp extends JFrame {
 
         /**
          * Constructor for MapPanel class
-         * @param algo Reference to Dijkstra's
+         * @param algo the engine that computes the MST
          * @param graph Reference to the graph
          */
-        public MapPanel(PrimsMST algo, Graph graph) {
+        public MapPanel(SpanningTreeAlgorithm algo, Graph graph) {
             this.algo = algo;
             this.graph = graph;
             this.setLayout(new BorderLayout());
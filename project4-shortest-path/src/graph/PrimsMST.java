@@ -8,14 +8,16 @@ package graph;
 import java.util.*;
 import java.awt.Point;
 
-public class PrimsMST {
+public class PrimsMST implements SpanningTreeAlgorithm {
 
     private Vertex[] mstTree; // stores the MST table
-    private Graph graph; // stores the graph of CityNode-s and edges connecting them
+    private Graph graph; // stores the graph of CityNode-s and edges connecting them, null for an OffHeapGraph
+    private GraphStorage storage; // the nodes and edges the algorithm runs on; the graph itself if there is one
     private List<Edges> minSpanningTree = null; // edges that are in the minimum spanning tree
-    private MinHeap minHeap; // stores the min heap
+    private IndexedMinQueue minHeap; // the priority queue of the nodes that are not in the tree yet
     private int numNodes; // stores the number of nodes in the graph
-    private Edge[] adjacencyList; // adjacency list; for each vertex stores a linked list of edges
+    private boolean spanningForest = false; // whether prims also spans the components that do not hold node 0
+    private int numComponents; // number of trees built by the last run of prims
 
 
     /**
@@ -27,8 +29,22 @@ public class PrimsMST {
     public PrimsMST(String filename, Graph graph) {
         this.graph = graph;
         graph.loadGraph(filename);
+        storage = graph;
         numNodes = graph.numNodes();
-        adjacencyList = graph.getAdjacencyList();
+        mstTree = new Vertex[numNodes];
+        minHeap = new MinHeap(numNodes);
+        minSpanningTree = new ArrayList<Edges>();
+    }
+
+    /**
+     * Constructor for any graph storage, for example an OffHeapGraph
+     *
+     * @param storage nodes and edges of the graph
+     */
+    public PrimsMST(GraphStorage storage) {
+        this.graph = storage instanceof Graph ? (Graph) storage : null;
+        this.storage = storage;
+        numNodes = storage.numNodes();
         mstTree = new Vertex[numNodes];
         minHeap = new MinHeap(numNodes);
         minSpanningTree = new ArrayList<Edges>();
@@ -51,35 +67,82 @@ public class PrimsMST {
         return minSpanningTree;
     }
 
+    /**
+     * Sets the priority queue used by prims, for example a DialQueue.
+     * The keys are edge costs, which are not monotone, so a RadixHeap can not be used.
+     * @param queue a queue sized for the number of nodes of the graph
+     */
+    public void setQueue(IndexedMinQueue queue) {
+        minHeap = queue;
+    }
+
+    /**
+     * Sets the spanning forest mode. By default prims grows one tree from node 0,
+     * which leaves out the nodes it can not reach. In spanning forest mode it
+     * starts a new tree from the first node that is not in a tree yet, until every
+     * node is, so the result is a minimum spanning tree of every component.
+     * @param spanningForest true to span every component
+     */
+    public void setSpanningForest(boolean spanningForest) {
+        this.spanningForest = spanningForest;
+    }
+
+    /**
+     * Returns the number of trees built by the last run of prims: the number of
+     * connected components in spanning forest mode, and 1 otherwise
+     * @return number of trees
+     */
+    public int getNumComponents() {
+        return numComponents;
+    }
+
     /**
      * Runs Prims algorithm to find the MST
      */
     public void prims() {
         int v;
-        Edge u;
-        minHeap = new MinHeap(numNodes);
-
-        // initialize the heap with all vertices
-        // and set the cost of traveling to vertex v to Inf
-        // and set the path of traveling to the given vertex to -1
+        int u;
+        int e;
+        int end;
+        minHeap.clear();
+
+        // set the cost of traveling to vertex v to Inf
+        // and set the path of traveling to the given vertex to -1;
+        // a vertex is added to the heap when the tree first reaches it
         for (v = 0; v < numNodes; v++) {
             mstTree[v] = new Vertex(v, Double.POSITIVE_INFINITY, -1, false);
-            minHeap.insert(v, Integer.MAX_VALUE);
         }
-        mstTree[0].setCost(0);
-        minHeap.reduceKey(0, (int) mstTree[0].getCost());
-
-        // run prim's
-        while (!minHeap.isEmpty()) {
-            v = minHeap.removeMin();
-
-            for (u = adjacencyList[v].next(); u != null; u = u.next()) {
-                if ((minHeap.isInHeap(u.getNeighbor())) && (u.getCost() < mstTree[u.getNeighbor()].getCost())) {
-                    mstTree[u.getNeighbor()].setCost(u.getCost());
-                    mstTree[u.getNeighbor()].setParent(v);
-                    minHeap.reduceKey(u.getNeighbor(), (int) mstTree[u.getNeighbor()].getCost());
+        numComponents = 0;
+
+        // run prim's from node 0, and in spanning forest mode from every node no tree has reached
+        for (int root = 0; root < numNodes; root++) {
+            if (mstTree[root].isKnown()) {
+                continue;
+            }
+            mstTree[root].setCost(0);
+            minHeap.insert(root, 0);
+            numComponents++;
+            while (!minHeap.isEmpty()) {
+                v = minHeap.removeMin();
+                mstTree[v].setKnown(true);
+
+                end = storage.firstEdge(v + 1);
+                for (e = storage.firstEdge(v); e < end; e++) {
+                    u = storage.target(e);
+                    if ((!mstTree[u].isKnown()) && (storage.cost(e) < mstTree[u].getCost())) {
+                        if (minHeap.contains(u)) {
+                            minHeap.decreaseKey(u, storage.cost(e));
+                        } else {
+                            minHeap.insert(u, storage.cost(e));
+                        }
+                        mstTree[u].setCost(storage.cost(e));
+                        mstTree[u].setParent(v);
+                    }
                 }
             }
+            if (!spanningForest) {
+                break;
+            }
         }
 //        printMST();
         buildMST();
@@ -95,10 +158,18 @@ public class PrimsMST {
         }
     }
 
+    /**
+     * Adds the edge from every node to its parent to the MST.
+     * The root of each tree has no parent and no edge, and neither do the
+     * nodes that are in no tree (outside spanning forest mode).
+     */
     private void buildMST() {
         int v;
-        for (v = 1; v < numNodes; v++) {
-            minSpanningTree.add(new Edges(mstTree[v].getParent(), mstTree[v].getNodeId()));
+        minSpanningTree = new ArrayList<Edges>(); // a new list, so that prims can run again after resetPath
+        for (v = 0; v < numNodes; v++) {
+            if (mstTree[v].getParent() != -1) {
+                minSpanningTree.add(new Edges(mstTree[v].getParent(), mstTree[v].getNodeId()));
+            }
         }
     }
 
@@ -111,7 +182,38 @@ public class PrimsMST {
     public Point[][] getPath() {
         if (minSpanningTree == null)
             return null;
-        return graph.getPrimPath(minSpanningTree); // delegating this task to the Graph class
+        return getPath(graph, storage, minSpanningTree);
+    }
+
+    /**
+     * Returns the edges of a spanning tree as pairs of Points: with Graph.getPrimPath
+     * if there is a Graph, and from the node locations of the storage otherwise
+     * @param graph the graph of CityNode-s, or null
+     * @param storage the nodes and edges of the graph
+     * @param minSpanningTree the edges of the tree
+     * @return 2D array of points
+     */
+    static Point[][] getPath(Graph graph, GraphStorage storage, List<Edges> minSpanningTree) {
+        Point[][] edges2D;
+
+        if (graph != null)
+            return graph.getPrimPath(minSpanningTree); // delegating this task to the Graph class
+        edges2D = new Point[minSpanningTree.size()][2];
+        for (int i = 0; i < edges2D.length; i++) {
+            edges2D[i][0] = location(storage, minSpanningTree.get(i).getNodeId1());
+            edges2D[i][1] = location(storage, minSpanningTree.get(i).getNodeId2());
+        }
+        return edges2D;
+    }
+
+    /**
+     * Returns the location of a node on the map
+     * @param storage the nodes and edges of the graph
+     * @param nodeId id of the node
+     * @return the location
+     */
+    private static Point location(GraphStorage storage, int nodeId) {
+        return new Point(storage.locationX(nodeId), storage.locationY(nodeId));
     }
 
     /** Set the shortestPath to null.
@@ -156,11 +258,11 @@ public class PrimsMST {
     }
 
     /**
-     * Private inner class to represent edges in the MST.
+     * Nested class to represent edges in the MST; also used by KruskalMST and BoruvkaMST.
      * Each edges object stores a vertex v's nodeId and a vertex u's nodeId.
      * Vertex v is connected to vertex u
      */
-    public class Edges {
+    public static class Edges {
         private int nodeId1;
         private int nodeId2;
 
@@ -3,40 +3,33 @@ package graph;
 /** A priority queue: implemented using a min heap.
  *  You may not use any Java built-in classes, you should implement
  *  PriorityQueue yourself. You may use/modify the MinHeap code posted
- *  by the instructor under Examples, as long as you understand it. */
-public class PriorityQueue {
-
-	private HeapElem[] heap; // the array to store the heap
-	private int maxsize; // the size of the array
-	private int size; // the current number of elements in the array
-	private int[] positions; // an array of pointers. maps nodeId to the index in the heap
+ *  by the instructor under Examples, as long as you understand it.
+ *
+ *  An indexed binary heap over int arrays: nodes[i] and priorities[i] are the
+ *  element at heap index i (the root is at index 1, index 0 is unused), and
+ *  positions maps every nodeId to its heap index, or 0 if the node is not in
+ *  the heap. insert, reduceKey and removeMin are O(log n); contains is O(1).
+ *  Implements IndexedMinQueue, so it can be the search queue of Dijkstra
+ *  (see Dijkstra.setQueue). */
+public class PriorityQueue implements IndexedMinQueue {
+
+	private int[] nodes; // nodes[i] is the nodeId of the element at heap index i
+	private int[] priorities; // priorities[i] is the priority of the element at heap index i
+	private int maxsize; // the largest number of elements the heap can hold
+	private int size; // the current number of elements in the heap
+	private int[] positions; // an array of pointers. maps nodeId to the index in the heap, 0 if not in the heap
 
 
 	/**
 	 * Constructor
-	 * @param numNodes the largest nodeId to be inserted into the size of the heap
+	 * @param numNodes the number of nodes: nodeIds are 0 .. numNodes - 1
 	 */
 	public PriorityQueue(int numNodes) {
 		maxsize = numNodes;
-		heap = new HeapElem[maxsize + 1];
-		size = 1;
-		positions = new int[maxsize + 1];
-		heap[0] = new HeapElem(-1, Integer.MIN_VALUE);
-		// Note: no actual data is stored at heap[0].
-		// Assigned MIN_VALUE so that it's easier to bubble up
-		initializeHeap(); // builds the initial heap with nodeIds and priority values
-	}
-
-	/**
-	 * Initialize the min heap with nodeIds up to the max value and priority value set to Integer.Max_Value
-	 * Also, initializes the positions array
-	 */
-	private void initializeHeap() {
-		for (int i = 1; i < heap.length; i++) {
-			int nodeId = i - 1;
-			heap[i] = new HeapElem(nodeId, Integer.MAX_VALUE);
-			positions[nodeId] = i;
-		}
+		nodes = new int[maxsize + 1];
+		priorities = new int[maxsize + 1];
+		positions = new int[maxsize];
+		size = 0;
 	}
 
 	/** Return the index of the left child of the element at index pos
@@ -48,15 +41,6 @@ public class PriorityQueue {
 		return 2 * pos;
 	}
 
-	/** Return the index of the right child
-	 *
-	 * @param pos the index of the element in the heap array
-	 * @return the index of the right child
-	 */
-	private int rightChild(int pos) {
-		return 2 * pos + 1;
-	}
-
 	/** Return the index of the parent
 	 *
 	 * @param pos the index of the element in the heap array
@@ -66,108 +50,137 @@ public class PriorityQueue {
 		return pos / 2;
 	}
 
-	/** Returns true if the node in a given position is a leaf
-	 *
-	 * @param pos the index of the element in the heap array
-	 * @return true if the node is a leaf, false otherwise
+	/** Insert a new element (nodeId, priority) into the heap.
+	 *  For this project, the priority is the current "distance"
+	 *  for this nodeId in Dikstra's algorithm.
+	 *  If the node is already in the heap, its priority is reduced
+	 *  when the new one is smaller, and left alone otherwise. */
+	public void insert(int nodeId, int priority) {
+		if (contains(nodeId)) {
+			if (priority < priorities[positions[nodeId]]) {
+				reduceKey(nodeId, priority);
+			}
+			return;
+		}
+		size++;
+		siftUp(size, nodeId, priority);
+	}
+
+	/**
+	 * Get the nodeId of the heap element at a given heap index
+	 * @param heapIndex the heap index, 1 .. getSize()
+	 * @return the nodeId at the heapIndex
 	 */
-	private boolean isLeaf(int pos) {
-		return ((pos > maxsize / 2) && (pos <= maxsize));
+	public int getNodeIdAtHeapIndex(int heapIndex) {
+		return nodes[heapIndex];
 	}
 
-	/** Swap given heap elements: one at heapIndex_1, another at heapIndex_2
-	 * as well as the position values in the positions array
-	 *
-	 * @param heapIndex_1 the heap index of the first element in the heap
-	 * @param heapIndex_2 the heap index of the second element in the heap
+	/**
+	 * Remove the element with the minimum priority
+	 * from the min heap and return its nodeId.
+	 * @return nodeId of the element with the smallest priority, -1 if the heap is empty
 	 */
-	private void swap(int heapIndex_1, int heapIndex_2) {
-		swapPositions(heapIndex_1, heapIndex_2); // swap the heap elements positions in the positions array
+	public int removeMin() {
+		int minNode;
+		int last;
 
-		// swap the heap elements in the heap array
-		HeapElem tmp;
-		tmp = heap[heapIndex_1];
-		heap[heapIndex_1] = heap[heapIndex_2];
-		heap[heapIndex_2] = tmp;
+		if (size == 0) {
+			return -1;
+		}
+		minNode = nodes[1];
+		positions[minNode] = 0;
+		last = size--;
+		if (size > 0) {
+			siftDown(1, nodes[last], priorities[last]); // the last element fills the hole at the root
+		}
+		return minNode;
 	}
 
 	/**
-	 * Swaps the given heap indexes' positions in the positions array
-	 *
-	 * @param heapIndex_1 the heap index of the first element in the heap
-	 * @param heapIndex_2 the heap index of the second element in the heap
+	 * Reduce the priority of the element with the given nodeId to newPriority.
+	 * You may assume newPriority is less or equal to the current priority for this node.
+	 * @param nodeId id of the node, which must be in the heap
+	 * @param newPriority new value of priority
 	 */
-	private void swapPositions(int heapIndex_1, int heapIndex_2) {
-		int nodeId_1 = heap[heapIndex_1].nodeId;
-		int nodeId_2 = heap[heapIndex_2].nodeId;
+	public void reduceKey(int nodeId, int newPriority) {
+		siftUp(positions[nodeId], nodeId, newPriority);
+	}
 
-		int tmp = positions[nodeId_1];
-		positions[nodeId_1] = positions[nodeId_2];
-		positions[nodeId_2] = tmp;
+	public void decreaseKey(int nodeId, int key) {
+		reduceKey(nodeId, key);
 	}
 
-	/** Insert a new element (nodeId, priority) into the heap.
-     *  For this project, the priority is the current "distance"
-     *  for this nodeId in Dikstra's algorithm. */
-	public void insert(int nodeId, int priority) {
-		if (heap[getHeapIndex(nodeId)].priority >= priority) {
-			reduceKey(nodeId, priority);
-		}
+	public boolean contains(int nodeId) {
+		return positions[nodeId] != 0;
 	}
 
 	/**
-	 * Get the nodeId of the heap element at a given heap index
-	 * @param heapIndex the heap index
-	 * @return the nodeId at the heapIndex
+	 * Removes all elements; only touches the nodes that are still in the heap
 	 */
-	public int getNodeIdAtHeapIndex(int heapIndex) {
-		return heap[heapIndex].nodeId;
+	public void clear() {
+		for (int i = 1; i <= size; i++) {
+			positions[nodes[i]] = 0;
+		}
+		size = 0;
 	}
 
-    /**
-     * Remove the element with the minimum priority
-     * from the min heap and return its nodeId.
-     * @return nodeId of the element with the smallest priority
-     */
-	public int removeMin() {
-		HeapElem minElem; // stores the values associated with the removed element
-		minElem = heap[1];
-
-		for (int i = 2; i < heap.length; i++) {
-			swap(i - 1, i);
+	/**
+	 * Moves an element up from heap index i until its parent's priority is not larger.
+	 * Elements on the way move down one level instead of being swapped.
+	 *
+	 * @param i the heap index to start from
+	 * @param nodeId the nodeId of the element
+	 * @param priority the priority of the element
+	 */
+	private void siftUp(int i, int nodeId, int priority) {
+		int p;
+		while (i > 1) {
+			p = parent(i);
+			if (priorities[p] <= priority) {
+				break;
+			}
+			nodes[i] = nodes[p];
+			priorities[i] = priorities[p];
+			positions[nodes[i]] = i;
+			i = p;
 		}
-		maxsize--; // removed the end of the heap
-		size--; // removed element is no longer included in the size of the heap
-
-		return minElem.nodeId; // return the nodeId of the removed heap element
+		nodes[i] = nodeId;
+		priorities[i] = priority;
+		positions[nodeId] = i;
 	}
 
-    /**
-     * Reduce the priority of the element with the given nodeId to newPriority.
-     * You may assume newPriority is less or equal to the current priority for this node.
-     * @param nodeId id of the node
-     * @param newPriority new value of priority
-     */
-	public void reduceKey(int nodeId, int newPriority) {
-		size++;
-		int heapIndex = getHeapIndex(nodeId);
-		heap[heapIndex].setPriority(newPriority);
-
-		// fix heap by bubbling up
-		int currHeapIndex = heapIndex;
-		int previousHeapIndex = heapIndex -1;
-		while ((previousHeapIndex >= 0) && (heap[currHeapIndex].priority < heap[previousHeapIndex].priority)) {
-			swap(currHeapIndex, previousHeapIndex); // swap the element at heapIndex with the element at the previousHeapIndex
-			currHeapIndex = previousHeapIndex;
-			previousHeapIndex = previousHeapIndex - 1;
+	/**
+	 * Moves an element down from heap index i until no child has a smaller priority.
+	 * Smaller children on the way move up one level instead of being swapped.
+	 *
+	 * @param i the heap index to start from
+	 * @param nodeId the nodeId of the element
+	 * @param priority the priority of the element
+	 */
+	private void siftDown(int i, int nodeId, int priority) {
+		int child;
+		while ((child = leftChild(i)) <= size) {
+			if (child < size && priorities[child + 1] < priorities[child]) {
+				child++;
+			}
+			if (priorities[child] >= priority) {
+				break;
+			}
+			nodes[i] = nodes[child];
+			priorities[i] = priorities[child];
+			positions[nodes[i]] = i;
+			i = child;
 		}
+		nodes[i] = nodeId;
+		priorities[i] = priority;
+		positions[nodeId] = i;
 	}
 
 	/**
 	 * Get the index of the elem with the given nodeId
 	 *
 	 * @param nodeId the id of the elem you want
-	 * @return the position of the elem in the heap
+	 * @return the position of the elem in the heap, 0 if it is not in the heap
 	 */
 	public int getHeapIndex(int nodeId) {
 		return positions[nodeId];
@@ -188,49 +201,14 @@ public class PriorityQueue {
 	 * @return true if size is 0, false otherwise
 	 */
 	public boolean isEmpty() {
-		if (size == 0) {
-			return true;
-		} else {
-			return false;
-		}
+		return size == 0;
 	}
 
 	/** Print the array that stores the heap */
 	public void printHeap() {
 		int i;
-		for (i = 1; i < heap.length; i++)
-			System.out.print("[" + heap[i].nodeId + ", " + heap[i].priority + "] ");
+		for (i = 1; i <= size; i++)
+			System.out.print("[" + nodes[i] + ", " + priorities[i] + "] ");
 		System.out.println();
 	}
-
-
-
-
-
-
-	/**
-	 * Private inner class to represent an element in the heap
-	 */
-	private class HeapElem {
-		private int nodeId; // stores the city's nodeId
-		private int priority; // stores the cost of traveling to the city
-
-		public HeapElem(int nodeId, int priority) {
-			this.nodeId = nodeId;
-			this.priority = priority;
-		}
-
-		public int getNodeId() { return this.nodeId; }
-
-		public int getPriority() { return this.priority; }
-
-		public void setNodeId(int nodeId) {
-			this.nodeId = nodeId;
-		}
-
-		public void setPriority(int priority) {
-			this.priority = priority;
-		}
-	}
 }
-
@@ -0,0 +1,182 @@
+package graph;
+
+import java.util.Arrays;
+
+/** Radix heap: a monotone integer priority queue for Dijkstra's algorithm.
+ *
+ *  Keys must never be smaller than the key last removed, which holds for
+ *  Dijkstra's algorithm with non-negative edge costs. Bucket 0 holds the nodes
+ *  whose key equals the last removed key; bucket b > 0 holds the nodes whose
+ *  key first differs from it in bit b - 1 (counting from the least significant
+ *  bit). When bucket 0 is empty, removeMin takes the first non-empty bucket,
+ *  makes its smallest key the new last key, and spreads its nodes over lower
+ *  buckets. A node only ever moves to lower buckets, so every node is moved at
+ *  most 32 times: insert and decreaseKey are O(1), and removeMin is amortized
+ *  O(log C) for a maximum edge cost C, instead of the O(log n) sifts of a binary heap.
+ *
+ *  The buckets are int arrays that grow by doubling and are kept between
+ *  searches, so a warmed-up radix heap does not allocate.
+ */
+public class RadixHeap implements IndexedMinQueue {
+    private static final int NUM_BUCKETS = 33; // bucket 0 plus one bucket per bit of an int key
+
+    private int[][] buckets; // node ids in each bucket
+    private int[] bucketSizes; // number of nodes in each bucket
+    private int[] keys; // key of each node in the queue
+    private int[] bucketOf; // bucket of each node, -1 if the node is not in the queue
+    private int[] indexInBucket; // index of each node in its bucket
+    private int last; // the key last removed; no key in the queue is smaller
+    private int size; // number of nodes in the queue
+
+    /**
+     * Constructor
+     * @param numNodes number of nodes of the graph
+     */
+    public RadixHeap(int numNodes) {
+        buckets = new int[NUM_BUCKETS][16];
+        bucketSizes = new int[NUM_BUCKETS];
+        keys = new int[numNodes];
+        bucketOf = new int[numNodes];
+        indexInBucket = new int[numNodes];
+        Arrays.fill(bucketOf, -1);
+    }
+
+    /**
+     * Adds a node that is not in the queue
+     * @param nodeId id of the node
+     * @param key the priority of the node, at least the key last removed
+     * @throws IllegalArgumentException if the key is smaller than the key last removed
+     */
+    public void insert(int nodeId, int key) {
+        checkMonotone(key);
+        keys[nodeId] = key;
+        add(nodeId, bucketIndex(key));
+        size++;
+    }
+
+    /**
+     * Lowers the key of a node that is in the queue
+     * @param nodeId id of the node
+     * @param key the new priority, at least the key last removed
+     * @throws IllegalArgumentException if the key is smaller than the key last removed
+     */
+    public void decreaseKey(int nodeId, int key) {
+        int bucket;
+
+        checkMonotone(key);
+        keys[nodeId] = key;
+        bucket = bucketIndex(key);
+        if (bucket != bucketOf[nodeId]) {
+            remove(nodeId);
+            add(nodeId, bucket);
+        }
+    }
+
+    /**
+     * Removes the node with the smallest key
+     * @return id of the removed node, -1 if the queue is empty
+     */
+    public int removeMin() {
+        int nodeId;
+
+        if (size == 0) {
+            return -1;
+        }
+        if (bucketSizes[0] == 0) {
+            redistribute();
+        }
+        nodeId = buckets[0][--bucketSizes[0]];
+        bucketOf[nodeId] = -1;
+        size--;
+        return nodeId;
+    }
+
+    /**
+     * Empties the first non-empty bucket into the lower buckets,
+     * after making its smallest key the last key
+     */
+    private void redistribute() {
+        int b = 1;
+        int[] nodes;
+        int count;
+        int min = Integer.MAX_VALUE;
+
+        while (bucketSizes[b] == 0) {
+            b++;
+        }
+        nodes = buckets[b];
+        count = bucketSizes[b];
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, keys[nodes[i]]);
+        }
+        last = min;
+        bucketSizes[b] = 0;
+        for (int i = 0; i < count; i++) { // every key now falls into a bucket below b
+            add(nodes[i], bucketIndex(keys[nodes[i]]));
+        }
+    }
+
+    /**
+     * Returns the key last removed, a lower bound on every key in the queue
+     * @return the key last removed, 0 before the first removal
+     */
+    public int getLastKey() {
+        return last;
+    }
+
+    public boolean contains(int nodeId) {
+        return bucketOf[nodeId] >= 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all nodes and resets the last key to 0; only touches the nodes that are still queued
+     */
+    public void clear() {
+        for (int b = 0; b < NUM_BUCKETS; b++) {
+            for (int i = 0; i < bucketSizes[b]; i++) {
+                bucketOf[buckets[b][i]] = -1;
+            }
+            bucketSizes[b] = 0;
+        }
+        size = 0;
+        last = 0;
+    }
+
+    /**
+     * Returns the bucket of a key: 0 if it equals the last key, otherwise
+     * one more than the index of the highest bit in which they differ
+     */
+    private int bucketIndex(int key) {
+        return 32 - Integer.numberOfLeadingZeros(key ^ last);
+    }
+
+    private void add(int nodeId, int bucket) {
+        int[] nodes = buckets[bucket];
+        if (bucketSizes[bucket] == nodes.length) {
+            nodes = Arrays.copyOf(nodes, Math.max(16, nodes.length * 2));
+            buckets[bucket] = nodes;
+        }
+        nodes[bucketSizes[bucket]] = nodeId;
+        indexInBucket[nodeId] = bucketSizes[bucket]++;
+        bucketOf[nodeId] = bucket;
+    }
+
+    private void remove(int nodeId) {
+        int bucket = bucketOf[nodeId];
+        int index = indexInBucket[nodeId];
+        int moved = buckets[bucket][--bucketSizes[bucket]]; // the last node of the bucket takes its place
+        buckets[bucket][index] = moved;
+        indexInBucket[moved] = index;
+        bucketOf[nodeId] = -1;
+    }
+
+    private void checkMonotone(int key) {
+        if (key < last) {
+            throw new IllegalArgumentException("Key " + key + " is smaller than the last removed key " + last);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package graph;
+
+import java.util.Arrays;
+
+/** Reusable scratch space for Dijkstra's algorithm.
+ *  Holds the cost and parent of every node in primitive arrays and an
+ *  indexed binary heap, all sized once for the number of nodes. The arrays are
+ *  never cleared: every entry carries the number of the search that wrote it
+ *  (a generation stamp), and entries from older searches count as unreached.
+ *  Starting a new search is therefore O(1), and a search only touches the
+ *  nodes it visits. After the constructor nothing is allocated.
+ *  The built-in binary heap can be replaced by any IndexedMinQueue, for
+ *  example a RadixHeap or a DialQueue, with setQueue.
+ *  A workspace is not thread-safe: use one workspace per thread.
+ */
+public class SearchWorkspace {
+    public static final int INF = Integer.MAX_VALUE; // cost of a node that has not been reached
+
+    private int numNodes; // number of nodes the workspace was sized for
+    private int[] cost; // cost of the best known path from the origin to each node
+    private int[] parent; // previous node on that path, -1 for the origin
+    private int[] stamp; // the generation that last wrote cost and parent of each node
+    private int generation; // number of the current search
+    private int numSettled; // number of nodes settled by the last search
+
+    private int[] heapNodes; // node ids in heap order
+    private int[] heapKeys; // key of the node at the same heap index
+    private int[] heapPos; // index of each node in the heap, -1 once it is settled
+    private int heapSize; // number of nodes in the heap
+    private IndexedMinQueue queue = null; // if not null, used instead of the built-in heap
+
+    /**
+     * Constructor
+     * @param numNodes number of nodes of the graphs this workspace will search
+     */
+    public SearchWorkspace(int numNodes) {
+        this.numNodes = numNodes;
+        this.cost = new int[numNodes];
+        this.parent = new int[numNodes];
+        this.stamp = new int[numNodes];
+        this.heapNodes = new int[numNodes];
+        this.heapKeys = new int[numNodes];
+        this.heapPos = new int[numNodes];
+        this.generation = 0;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm on any graph storage: a Graph, a GraphSnapshot or an OffHeapGraph.
+     * If destId is not -1, the search stops as soon as the destination is settled.
+     * @param graph the graph
+     * @param originId node id of the origin
+     * @param destId node id of the destination, or -1 to settle every reachable node
+     */
+    public void dijkstra(GraphStorage graph, int originId, int destId) {
+        int v;
+        int u;
+        int newCost;
+        int end;
+
+        startSearch();
+        reach(originId, 0, -1);
+        while (!isQueueEmpty()) {
+            v = removeMin();
+            numSettled++;
+            if (v == destId) {
+                break; // the cost of the destination is final
+            }
+            end = graph.firstEdge(v + 1);
+            for (int e = graph.firstEdge(v); e < end; e++) {
+                u = graph.target(e);
+                newCost = cost[v] + graph.cost(e);
+                if (stamp[u] != generation) { // first time the search reaches u
+                    reach(u, newCost, v);
+                } else if (isQueued(u) && newCost < cost[u]) {
+                    cost[u] = newCost;
+                    parent[u] = v;
+                    decreaseKey(u, newCost);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the path from the origin of the last search to the given node
+     * into the buffer, origin first
+     * @param destId id of the last node of the path
+     * @param pathBuffer the buffer to fill; numNodes entries are always enough
+     * @return number of nodes on the path, 0 if destId was not reached
+     * @throws IllegalArgumentException if the path does not fit into the buffer
+     */
+    public int copyPath(int destId, int[] pathBuffer) {
+        int length = 0;
+        int i;
+
+        if (!isReached(destId)) {
+            return 0;
+        }
+        for (int v = destId; v != -1; v = parent[v]) {
+            length++;
+        }
+        if (length > pathBuffer.length) {
+            throw new IllegalArgumentException("The path has " + length + " nodes, the buffer only holds "
+                    + pathBuffer.length);
+        }
+        i = length;
+        for (int v = destId; v != -1; v = parent[v]) {
+            pathBuffer[--i] = v;
+        }
+        return length;
+    }
+
+    /**
+     * Returns the cost of the best path found by the last search
+     * @param nodeId id of the node
+     * @return the cost, INF if the node was not reached
+     */
+    public int getCost(int nodeId) {
+        return isReached(nodeId) ? cost[nodeId] : INF;
+    }
+
+    /**
+     * Returns the previous node on the best path found by the last search
+     * @param nodeId id of the node
+     * @return the parent, -1 for the origin and for nodes that were not reached
+     */
+    public int getParent(int nodeId) {
+        return isReached(nodeId) ? parent[nodeId] : -1;
+    }
+
+    /**
+     * Whether the last search reached the node
+     * @param nodeId id of the node
+     * @return true if the node has a cost
+     */
+    public boolean isReached(int nodeId) {
+        return stamp[nodeId] == generation;
+    }
+
+    /**
+     * Whether the cost of the node is final (the node was removed from the heap)
+     * @param nodeId id of the node
+     * @return true if the node was settled by the last search
+     */
+    public boolean isSettled(int nodeId) {
+        return isReached(nodeId) && !isQueued(nodeId);
+    }
+
+    /**
+     * Returns the number of nodes settled by the last search
+     * @return number of settled nodes
+     */
+    public int getNumSettled() {
+        return numSettled;
+    }
+
+    /**
+     * Sets the priority queue used by the searches
+     * @param queue a queue sized for numNodes() nodes, or null for the built-in binary heap
+     */
+    public void setQueue(IndexedMinQueue queue) {
+        this.queue = queue;
+    }
+
+    /**
+     * Returns the priority queue used by the searches
+     * @return the queue, null for the built-in binary heap
+     */
+    public IndexedMinQueue getQueue() {
+        return queue;
+    }
+
+    /**
+     * Returns the number of nodes the workspace was sized for
+     * @return number of nodes
+     */
+    public int numNodes() {
+        return numNodes;
+    }
+
+    /**
+     * Starts a new generation; the stamps are only cleared when the counter wraps around
+     */
+    private void startSearch() {
+        generation++;
+        if (generation == 0) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        heapSize = 0;
+        if (queue != null) {
+            queue.clear();
+        }
+        numSettled = 0;
+    }
+
+    /**
+     * Gives a node its first cost in this search and adds it to the heap
+     */
+    private void reach(int nodeId, int newCost, int parentId) {
+        stamp[nodeId] = generation;
+        cost[nodeId] = newCost;
+        parent[nodeId] = parentId;
+        if (queue != null) {
+            queue.insert(nodeId, newCost);
+        } else {
+            siftUp(heapSize++, nodeId, newCost);
+        }
+    }
+
+    /**
+     * Lowers the key of a node that is in the heap
+     */
+    private void decreaseKey(int nodeId, int newCost) {
+        if (queue != null) {
+            queue.decreaseKey(nodeId, newCost);
+        } else {
+            siftUp(heapPos[nodeId], nodeId, newCost);
+        }
+    }
+
+    /**
+     * Whether a node reached by this search is still in the heap
+     */
+    private boolean isQueued(int nodeId) {
+        return queue != null ? queue.contains(nodeId) : heapPos[nodeId] >= 0;
+    }
+
+    private boolean isQueueEmpty() {
+        return queue != null ? queue.isEmpty() : heapSize == 0;
+    }
+
+    /**
+     * Removes the node with the smallest key from the heap
+     * @return id of the removed node
+     */
+    private int removeMin() {
+        if (queue != null) {
+            return queue.removeMin();
+        }
+        int min = heapNodes[0];
+        int last = --heapSize;
+
+        heapPos[min] = -1;
+        if (last > 0) {
+            siftDown(0, heapNodes[last], heapKeys[last]);
+        }
+        return min;
+    }
+
+    /**
+     * Moves a node with the given key up from index i to its place in the heap
+     */
+    private void siftUp(int i, int nodeId, int key) {
+        int p;
+        while (i > 0) {
+            p = (i - 1) >>> 1;
+            if (heapKeys[p] <= key) {
+                break;
+            }
+            heapNodes[i] = heapNodes[p];
+            heapKeys[i] = heapKeys[p];
+            heapPos[heapNodes[i]] = i;
+            i = p;
+        }
+        heapNodes[i] = nodeId;
+        heapKeys[i] = key;
+        heapPos[nodeId] = i;
+    }
+
+    /**
+     * Moves a node with the given key down from index i to its place in the heap
+     */
+    private void siftDown(int i, int nodeId, int key) {
+        int child;
+        while ((child = 2 * i + 1) < heapSize) {
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                child++;
+            }
+            if (heapKeys[child] >= key) {
+                break;
+            }
+            heapNodes[i] = heapNodes[child];
+            heapKeys[i] = heapKeys[child];
+            heapPos[heapNodes[i]] = i;
+            i = child;
+        }
+        heapNodes[i] = nodeId;
+        heapKeys[i] = key;
+        heapPos[nodeId] = i;
+    }
+}
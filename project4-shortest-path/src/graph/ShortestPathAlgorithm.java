@@ -0,0 +1,48 @@
+package graph;
+
+import java.awt.Point;
+import java.util.Collections;
+import java.util.List;
+
+/** Interface implemented by the shortest path engines (Dijkstra, BidirectionalDijkstra, ...).
+ *  GUIApp and Driver only talk to this interface, so the engine that answers
+ *  a query can be picked per query and their latencies can be compared.
+ */
+public interface ShortestPathAlgorithm {
+
+    /**
+     * Returns the shortest path between the origin vertex and the destination vertex.
+     * @param origin source node
+     * @param destination destination node
+     * @return the list of nodeIds on the shortest path, empty if the destination can not be reached
+     */
+    List<Integer> computeShortestPath(CityNode origin, CityNode destination);
+
+    /**
+     * Returns the number of nodes settled by the last call to computeShortestPath
+     * @return number of settled nodes
+     */
+    int getNumSettled();
+
+    /**
+     * Return the last computed shortest path as a 2D array of Points
+     * (see Graph.getPath), or null if there is no path to show.
+     * @return 2D array of points
+     */
+    Point[][] getPath();
+
+    /**
+     * Returns other routes between the origin and the destination of the
+     * last query, to be drawn next to the shortest path. Only engines that
+     * compute several routes, such as KShortestPaths, return any.
+     * @return a 2D array of Points (see Graph.getPath) for each alternative route
+     */
+    default List<Point[][]> getAlternativePaths() {
+        return Collections.emptyList();
+    }
+
+    /** Forget the last computed path.
+     *  Called when the user presses Reset button.
+     */
+    void resetPath();
+}
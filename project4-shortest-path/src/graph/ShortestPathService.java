@@ -0,0 +1,213 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/** Thread-safe shortest path queries over a shared GraphSnapshot.
+ *  Unlike Dijkstra, this class keeps no per-query state in its fields:
+ *  every query borrows a SearchWorkspace from a pool of idle workspaces and
+ *  returns it when done. A thread therefore always searches with its own
+ *  scratch arrays. Every workspace holds O(numNodes) arrays, so the number of
+ *  workspaces is bounded (by default by the number of processors): when all
+ *  of them are in use, a query waits until one is returned. Because
+ *  workspaces are not tied to threads, this also works when every query runs
+ *  on a new (virtual) thread, e.g. with Executors.newVirtualThreadPerTaskExecutor()
+ *  on JDK 21; the extra threads then wait instead of allocating more memory.
+ */
+public class ShortestPathService {
+    private static final int BATCH_CHUNK = 64; // number of queries one batch task answers
+
+    private final GraphSnapshot snapshot; // the shared graph
+    private final ConcurrentLinkedQueue<SearchWorkspace> idleWorkspaces; // workspaces not used by any query
+    private final Semaphore permits; // one permit per workspace that may still be used or created
+
+    /**
+     * Constructor; at most one workspace per available processor is created
+     * @param snapshot the graph to answer queries on
+     */
+    public ShortestPathService(GraphSnapshot snapshot) {
+        this(snapshot, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor
+     * @param snapshot the graph to answer queries on
+     * @param maxWorkspaces the largest number of workspaces, and so of queries that search at the same time
+     * @throws IllegalArgumentException if maxWorkspaces is not positive
+     */
+    public ShortestPathService(GraphSnapshot snapshot, int maxWorkspaces) {
+        if (maxWorkspaces <= 0) {
+            throw new IllegalArgumentException("Need at least one workspace: " + maxWorkspaces);
+        }
+        this.snapshot = snapshot;
+        this.idleWorkspaces = new ConcurrentLinkedQueue<>();
+        this.permits = new Semaphore(maxWorkspaces);
+    }
+
+    /**
+     * Returns the shortest path between the origin and the destination.
+     * Safe to call from many threads at once.
+     * @param origin source node
+     * @param destination destination node
+     * @return the list of nodeIds on the shortest path, empty if the destination can not be reached
+     * @throws IllegalArgumentException if a city is not in the graph
+     */
+    public List<Integer> computeShortestPath(CityNode origin, CityNode destination) {
+        int originId = snapshot.getId(origin);
+        int destId = snapshot.getId(destination);
+
+        if (originId == -1 || destId == -1) {
+            throw new IllegalArgumentException("The city " + (originId == -1 ? origin : destination).getCity()
+                    + " is not in the graph");
+        }
+        return computeShortestPath(originId, destId);
+    }
+
+    /**
+     * Returns the shortest path between two node ids.
+     * Safe to call from many threads at once.
+     * @param originId node id of the origin
+     * @param destId node id of the destination
+     * @return the list of nodeIds on the shortest path, empty if the destination can not be reached
+     * @throws IllegalArgumentException if a node id is out of range
+     */
+    public List<Integer> computeShortestPath(int originId, int destId) {
+        SearchWorkspace workspace;
+        List<Integer> path = new ArrayList<>();
+
+        checkNodeIds(originId, destId);
+        workspace = acquire();
+        try {
+            workspace.dijkstra(snapshot, originId, destId);
+            for (int v = destId; v != -1 && workspace.isReached(v); v = workspace.getParent(v)) {
+                path.add(v);
+            }
+        } finally {
+            release(workspace);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Allocation-free version of computeShortestPath (once the pool is warm).
+     * Safe to call from many threads at once, each with its own buffer.
+     * @param originId node id of the origin
+     * @param destId node id of the destination
+     * @param pathBuffer receives the node ids on the shortest path, origin first
+     * @return number of nodes on the shortest path, 0 if the destination can not be reached
+     * @throws IllegalArgumentException if a node id is out of range
+     */
+    public int computeShortestPath(int originId, int destId, int[] pathBuffer) {
+        SearchWorkspace workspace;
+
+        checkNodeIds(originId, destId);
+        workspace = acquire();
+        try {
+            workspace.dijkstra(snapshot, originId, destId);
+            return workspace.copyPath(destId, pathBuffer);
+        } finally {
+            release(workspace);
+        }
+    }
+
+    /**
+     * Answers a batch of queries on the given executor. The queries are split
+     * into chunks of BATCH_CHUNK consecutive pairs, one task per chunk.
+     * @param origins origin of each query
+     * @param destinations destination of each query, same size as origins
+     * @param executor the executor that runs the tasks (a thread pool, a ForkJoinPool,
+     *                 or a virtual thread per task executor)
+     * @return the shortest path of each query, in the order of the queries
+     * @throws IllegalArgumentException if the two lists do not have the same size
+     * @throws IllegalStateException if a task fails or the calling thread is interrupted
+     */
+    public List<List<Integer>> computeShortestPaths(List<CityNode> origins, List<CityNode> destinations,
+                                                    ExecutorService executor) {
+        int numQueries = origins.size();
+        List<Future<List<List<Integer>>>> chunks = new ArrayList<>();
+        List<List<Integer>> result = new ArrayList<>(numQueries);
+
+        if (destinations.size() != numQueries) {
+            throw new IllegalArgumentException("Got " + numQueries + " origins but " + destinations.size()
+                    + " destinations");
+        }
+        for (int start = 0; start < numQueries; start += BATCH_CHUNK) {
+            final int from = start;
+            final int to = Math.min(start + BATCH_CHUNK, numQueries);
+            chunks.add(executor.submit(() -> {
+                List<List<Integer>> paths = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    paths.add(computeShortestPath(origins.get(i), destinations.get(i)));
+                }
+                return paths;
+            }));
+        }
+        try {
+            for (Future<List<List<Integer>>> chunk : chunks) {
+                result.addAll(chunk.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the batch", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A batch query failed", e.getCause());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the snapshot this service answers queries on
+     * @return the graph snapshot
+     */
+    public GraphSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Throws an IllegalArgumentException unless both ids are node ids of the snapshot
+     */
+    private void checkNodeIds(int originId, int destId) {
+        if (originId < 0 || originId >= snapshot.numNodes() || destId < 0 || destId >= snapshot.numNodes()) {
+            throw new IllegalArgumentException("No such node: " + (originId < 0 || originId >= snapshot.numNodes()
+                    ? originId : destId));
+        }
+    }
+
+    /**
+     * Takes an idle workspace from the pool, or creates one if fewer than
+     * maxWorkspaces exist; waits while all of them are in use
+     * @return a workspace that no other thread uses
+     * @throws IllegalStateException if the thread is interrupted while waiting
+     */
+    private SearchWorkspace acquire() {
+        SearchWorkspace workspace;
+
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a workspace", e);
+        }
+        workspace = idleWorkspaces.poll();
+        if (workspace == null) {
+            workspace = new SearchWorkspace(snapshot.numNodes());
+        }
+        return workspace;
+    }
+
+    /**
+     * Puts a workspace back into the pool
+     * @param workspace the workspace that is no longer used
+     */
+    private void release(SearchWorkspace workspace) {
+        idleWorkspaces.offer(workspace);
+        permits.release();
+    }
+}
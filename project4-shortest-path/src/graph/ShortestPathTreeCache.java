@@ -0,0 +1,373 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** A bounded cache of shortest path trees, keyed by origin node id.
+ *  A tree stores the cost and the parent of every node in two primitive arrays,
+ *  so a query from a cached origin is answered by backtracking the parents.
+ *  All graphs built by Graph.loadGraph are symmetric, so a tree rooted at the
+ *  destination also answers the query, by walking the parents from the origin.
+ *
+ *  The cache holds as many trees as fit into its memory budget and evicts the
+ *  least recently used tree first. Hits, misses and evictions are counted.
+ *  All methods are synchronized, so a cache can be shared between threads.
+ *
+ *  When the cost of an edge changes (Graph.updateEdgeCost), the cached trees
+ *  are repaired in the manner of Ramalingam and Reps instead of being dropped.
+ *  A lower cost can only improve the nodes behind the edge, so a Dijkstra
+ *  search starts at its far end and stops at nodes that do not improve. A
+ *  higher cost only matters if the edge is in the tree: then the subtree
+ *  below it loses its costs, every node of the subtree takes its best offer
+ *  from a neighbor outside the subtree, and a Dijkstra search restricted to
+ *  the subtree settles the rest. Either way the work is proportional to the
+ *  nodes whose cost changes and their edges, not to the size of the graph.
+ *  The number of updates, the nodes they touched and the time spent on the
+ *  repairs are counted, to measure update throughput and repair latency.
+ */
+public class ShortestPathTreeCache implements EdgeCostListener {
+    private static final long TREE_OVERHEAD = 64; // estimated bytes of the objects around the two arrays
+
+    private final long memoryBudget; // maximum number of bytes used by the cached trees
+    private final LinkedHashMap<Integer, Tree> trees; // cached trees in least recently used order
+    private long bytesUsed; // bytes used by the cached trees
+    private long hits; // queries answered from the cache
+    private long misses; // queries that needed a search
+    private long evictions; // trees removed to stay within the budget
+    private long updates; // edge cost changes seen
+    private long repairedTrees; // trees that an edge cost change altered
+    private long repairedNodes; // nodes whose cost was recomputed by a repair
+    private long repairNanos; // time spent repairing trees
+
+    private IndexedMinQueue queue; // heap of the repair searches, sized for the graph
+    private int[] subtree; // the nodes of the subtree cut off by a more expensive tree edge
+    private int[] mark; // mark[v] == generation if v is in that subtree
+    private int generation; // number of the current subtree
+
+    /**
+     * Constructor
+     * @param memoryBudget maximum number of bytes the cached trees may use
+     */
+    public ShortestPathTreeCache(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        this.trees = new LinkedHashMap<>(16, 0.75f, true); // access order, for LRU eviction
+    }
+
+    /**
+     * Copies the shortest path from the origin to the destination into the
+     * buffer, using the tree of the origin, or else the tree of the destination.
+     * Counts a hit if one of the trees is cached and a miss otherwise.
+     * @param originId node id of the origin
+     * @param destId node id of the destination
+     * @param pathBuffer receives the node ids on the path, origin first
+     * @return number of nodes on the path (0 if there is no path), or -1 if neither tree is cached
+     */
+    public synchronized int findPath(int originId, int destId, int[] pathBuffer) {
+        Tree tree = trees.get(originId);
+        int length;
+
+        if (tree != null) {
+            hits++;
+            return tree.copyPath(destId, pathBuffer);
+        }
+        tree = trees.get(destId);
+        if (tree != null) {
+            hits++;
+            length = tree.copyPath(originId, pathBuffer); // destination ... origin
+            for (int i = 0, j = length - 1; i < j; i++, j--) {
+                int tmp = pathBuffer[i];
+                pathBuffer[i] = pathBuffer[j];
+                pathBuffer[j] = tmp;
+            }
+            return length;
+        }
+        misses++;
+        return -1;
+    }
+
+    /**
+     * Caches the tree of a full search (one that settled every reachable node)
+     * and evicts least recently used trees until the cache fits its budget.
+     * A tree larger than the whole budget is not cached.
+     * @param originId node id of the origin of the search
+     * @param workspace the workspace that ran the search
+     */
+    public synchronized void put(int originId, SearchWorkspace workspace) {
+        int numNodes = workspace.numNodes();
+        long treeBytes = 8L * numNodes + TREE_OVERHEAD;
+        Tree tree;
+        Iterator<Map.Entry<Integer, Tree>> iter;
+
+        if (treeBytes > memoryBudget || trees.containsKey(originId)) {
+            return;
+        }
+        tree = new Tree(originId, numNodes);
+        for (int v = 0; v < numNodes; v++) {
+            tree.cost[v] = workspace.getCost(v);
+            tree.parent[v] = workspace.getParent(v);
+        }
+        iter = trees.entrySet().iterator();
+        while (bytesUsed + treeBytes > memoryBudget && iter.hasNext()) {
+            bytesUsed -= iter.next().getValue().bytes();
+            iter.remove();
+            evictions++;
+        }
+        trees.put(originId, tree);
+        bytesUsed += treeBytes;
+    }
+
+    /**
+     * Repairs every cached tree after the cost of the edge between two nodes has changed.
+     * Called by the graph; see the class comment.
+     * @param graph the graph, which already holds the new cost
+     * @param nodeId1 id of one end of the edge
+     * @param nodeId2 id of the other end of the edge
+     * @param oldCost the cost before the change
+     * @param newCost the cost after the change
+     */
+    public synchronized void edgeCostChanged(GraphStorage graph, int nodeId1, int nodeId2, int oldCost, int newCost) {
+        long start = System.nanoTime();
+        int changed;
+
+        updates++;
+        if (newCost != oldCost && !trees.isEmpty()) {
+            ensureScratch(graph.numNodes());
+            for (Tree tree : trees.values()) {
+                if (newCost < oldCost) {
+                    changed = repairDecrease(graph, tree, nodeId1, nodeId2, newCost);
+                } else {
+                    changed = repairIncrease(graph, tree, nodeId1, nodeId2);
+                }
+                if (changed > 0) {
+                    repairedTrees++;
+                    repairedNodes += changed;
+                }
+            }
+        }
+        repairNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Repairs a tree after the edge between a and b got cheaper
+     * @return number of nodes whose cost went down
+     */
+    private int repairDecrease(GraphStorage graph, Tree tree, int a, int b, int newCost) {
+        int[] cost = tree.cost;
+        int[] parent = tree.parent;
+        int changed = 0;
+        int v;
+        int u;
+        int newDist;
+        int end;
+
+        queue.clear();
+        offer(tree, a, b, newCost);
+        offer(tree, b, a, newCost);
+        while (!queue.isEmpty()) {
+            v = queue.removeMin();
+            changed++;
+            end = graph.firstEdge(v + 1);
+            for (int e = graph.firstEdge(v); e < end; e++) {
+                u = graph.target(e);
+                newDist = cost[v] + graph.cost(e);
+                if (newDist < cost[u]) {
+                    cost[u] = newDist;
+                    parent[u] = v;
+                    if (queue.contains(u)) {
+                        queue.decreaseKey(u, newDist);
+                    } else {
+                        queue.insert(u, newDist);
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Lowers the cost of node to if the path through from and the edge between them is shorter
+     */
+    private void offer(Tree tree, int from, int to, int edgeCost) {
+        int newDist;
+
+        if (tree.cost[from] == SearchWorkspace.INF) {
+            return;
+        }
+        newDist = tree.cost[from] + edgeCost;
+        if (newDist < tree.cost[to]) {
+            tree.cost[to] = newDist;
+            tree.parent[to] = from;
+            queue.insert(to, newDist);
+        }
+    }
+
+    /**
+     * Repairs a tree after the edge between a and b got more expensive
+     * @return number of nodes in the subtree below the edge, 0 if the edge is not in the tree
+     */
+    private int repairIncrease(GraphStorage graph, Tree tree, int a, int b) {
+        int[] cost = tree.cost;
+        int[] parent = tree.parent;
+        int root; // the end of the edge that is further from the origin
+        int size;
+        int v;
+        int u;
+        int newDist;
+        int end;
+
+        if (parent[b] == a) {
+            root = b;
+        } else if (parent[a] == b) {
+            root = a;
+        } else {
+            return 0; // no shortest path uses the edge
+        }
+        generation++;
+        if (generation == 0) {
+            Arrays.fill(mark, 0);
+            generation = 1;
+        }
+        size = 0;
+        subtree[size++] = root;
+        mark[root] = generation;
+        for (int i = 0; i < size; i++) { // the children of v are the neighbors whose parent is v
+            v = subtree[i];
+            end = graph.firstEdge(v + 1);
+            for (int e = graph.firstEdge(v); e < end; e++) {
+                u = graph.target(e);
+                if (parent[u] == v && mark[u] != generation) {
+                    mark[u] = generation;
+                    subtree[size++] = u;
+                }
+            }
+        }
+        queue.clear();
+        for (int i = 0; i < size; i++) { // best offer from outside the subtree
+            v = subtree[i];
+            cost[v] = SearchWorkspace.INF;
+            parent[v] = -1;
+            end = graph.firstEdge(v + 1);
+            for (int e = graph.firstEdge(v); e < end; e++) {
+                u = graph.target(e);
+                if (mark[u] != generation && cost[u] != SearchWorkspace.INF) {
+                    newDist = cost[u] + graph.cost(e);
+                    if (newDist < cost[v]) {
+                        cost[v] = newDist;
+                        parent[v] = u;
+                    }
+                }
+            }
+            if (cost[v] != SearchWorkspace.INF) {
+                queue.insert(v, cost[v]);
+            }
+        }
+        while (!queue.isEmpty()) { // Dijkstra's algorithm inside the subtree
+            v = queue.removeMin();
+            end = graph.firstEdge(v + 1);
+            for (int e = graph.firstEdge(v); e < end; e++) {
+                u = graph.target(e);
+                if (mark[u] == generation) {
+                    newDist = cost[v] + graph.cost(e);
+                    if (newDist < cost[u]) {
+                        cost[u] = newDist;
+                        parent[u] = v;
+                        if (queue.contains(u)) {
+                            queue.decreaseKey(u, newDist);
+                        } else {
+                            queue.insert(u, newDist);
+                        }
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Sizes the heap and the subtree arrays of the repairs for the graph
+     */
+    private void ensureScratch(int numNodes) {
+        if (mark == null || mark.length != numNodes) {
+            queue = new MinHeap(numNodes);
+            subtree = new int[numNodes];
+            mark = new int[numNodes];
+            generation = 0;
+        }
+    }
+
+    /** Removes all trees; the counters are kept */
+    public synchronized void clear() {
+        trees.clear();
+        bytesUsed = 0;
+    }
+
+    public synchronized long getHits() { return hits; }
+
+    public synchronized long getMisses() { return misses; }
+
+    public synchronized long getEvictions() { return evictions; }
+
+    public synchronized long getUpdates() { return updates; }
+
+    public synchronized long getRepairedTrees() { return repairedTrees; }
+
+    public synchronized long getRepairedNodes() { return repairedNodes; }
+
+    /**
+     * Returns the total time spent repairing trees; divided by getUpdates
+     * it is the average repair latency of an edge cost change
+     * @return time in nanoseconds
+     */
+    public synchronized long getRepairNanos() { return repairNanos; }
+
+    public synchronized int size() { return trees.size(); }
+
+    public synchronized long getBytesUsed() { return bytesUsed; }
+
+    /**
+     * A shortest path tree: the cost of the shortest path from the origin to
+     * every node, and the previous node on that path (-1 for the origin and
+     * for nodes that can not be reached).
+     */
+    static class Tree {
+        final int originId;
+        final int[] cost;
+        final int[] parent;
+
+        Tree(int originId, int numNodes) {
+            this.originId = originId;
+            this.cost = new int[numNodes];
+            this.parent = new int[numNodes];
+        }
+
+        long bytes() {
+            return 8L * cost.length + TREE_OVERHEAD;
+        }
+
+        /**
+         * Copies the path from the origin to the node into the buffer, origin first
+         * @return number of nodes on the path, 0 if the node can not be reached
+         */
+        int copyPath(int nodeId, int[] pathBuffer) {
+            int length = 0;
+            int i;
+            if (cost[nodeId] == SearchWorkspace.INF) {
+                return 0;
+            }
+            for (int v = nodeId; v != -1; v = parent[v]) {
+                length++;
+            }
+            if (length > pathBuffer.length) {
+                throw new IllegalArgumentException("The path has " + length + " nodes, the buffer only holds "
+                        + pathBuffer.length);
+            }
+            i = length;
+            for (int v = nodeId; v != -1; v = parent[v]) {
+                pathBuffer[--i] = v;
+            }
+            return length;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package graph;
+
+import java.awt.Point;
+import java.util.List;
+
+/** Interface implemented by the minimum spanning tree engines (PrimsMST,
+ *  KruskalMST, BoruvkaMST). PrimGUIApp only talks to this interface, so the
+ *  engines can be swapped and their build times compared.
+ */
+public interface SpanningTreeAlgorithm {
+
+    /**
+     * Computes the minimum spanning tree.
+     * @return the edges of the tree, each given by the node ids of its two ends
+     */
+    List<PrimsMST.Edges> computeShortestPath();
+
+    /**
+     * Return the last computed tree as a 2D array of Points
+     * (see Graph.getPrimPath), or null if there is no tree to show.
+     * @return 2D array of points
+     */
+    Point[][] getPath();
+
+    /** Forget the last computed tree.
+     *  Called when the user presses Reset button.
+     */
+    void resetPath();
+}
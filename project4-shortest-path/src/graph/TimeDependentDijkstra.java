@@ -0,0 +1,243 @@
+package graph;
+
+/** Class TimeDependentDijkstra. Dijkstra's algorithm for a departure time:
+ *  the cost of an edge is the travel time of its TravelTimeFunctions entry
+ *  at the moment the edge is entered, and edges without a function keep
+ *  their static cost.
+ *
+ *  The labels are arrival times. Because every function is FIFO, arriving
+ *  at a node earlier never leads to arriving anywhere later, so the first
+ *  label a node gets when it leaves the heap is final, exactly as in the
+ *  static case: each node is settled once, and a query costs one function
+ *  evaluation per relaxed edge on top of a static search. Like
+ *  SearchWorkspace the arrays are stamped with the number of the query
+ *  instead of being cleared, so a query only touches the nodes it visits.
+ */
+
+import java.util.*;
+import java.awt.Point;
+
+public class TimeDependentDijkstra implements ShortestPathAlgorithm {
+    private static final int INF = Integer.MAX_VALUE; // arrival time at a node that has not been reached
+
+    private Graph graph; // stores the graph of CityNode-s and edges connecting them, null for other storages
+    private GraphStorage storage; // the nodes and edges the search runs on
+    private TravelTimeFunctions functions; // travel times of the edges
+    private List<Integer> shortestPath = null; // nodes that are part of the fastest path
+    private int numNodes; // stores the number of nodes in the graph
+    private int departureTime; // departure time of computeShortestPath(CityNode, CityNode)
+
+    private int[] arrival; // earliest known arrival time at each node
+    private int[] parent; // previous node on the fastest known path
+    private int[] stamp; // the query that last wrote arrival and parent of each node
+    private int generation; // number of the current query
+    private int numSettled; // number of nodes settled by the last search
+    private int lastArrival; // arrival time at the destination of the last query, INF if it was not reached
+    private IndexedMinQueue queue; // priority queue of the search, reused by every query
+    private int[] pathBuffer; // holds the node ids of the last fastest path
+
+    /** Constructor
+     *
+     * @param storage nodes and edges of the graph, usually a Graph that has already been loaded
+     * @param functions travel time functions of the edges of that graph
+     * @throws IllegalArgumentException if the functions belong to a graph with a different number of edges
+     */
+    public TimeDependentDijkstra(GraphStorage storage, TravelTimeFunctions functions) {
+        if (functions.getGraph().numEdges() != storage.numEdges()) {
+            throw new IllegalArgumentException("The travel time functions are for a graph with "
+                    + functions.getGraph().numEdges() + " edges, not " + storage.numEdges());
+        }
+        this.graph = storage instanceof Graph ? (Graph) storage : null;
+        this.storage = storage;
+        this.functions = functions;
+        this.numNodes = storage.numNodes();
+        this.arrival = new int[numNodes];
+        this.parent = new int[numNodes];
+        this.stamp = new int[numNodes];
+        this.queue = new DaryHeap(numNodes, 4); // on road graphs a 4-ary heap beats a binary one
+        this.pathBuffer = new int[numNodes];
+    }
+
+    /**
+     * Returns the fastest path between the origin and the destination when
+     * leaving at the departure time set with setDepartureTime (0 by default),
+     * so that GUIApp and Driver can use this engine like the others.
+     * @param origin source node
+     * @param destination destination node
+     * @return the ArrayList of nodeIds (of nodes on the fastest path),
+     * empty if the destination can not be reached from the origin
+     */
+    public List<Integer> computeShortestPath(CityNode origin, CityNode destination) {
+        return computeShortestPath(origin, destination, departureTime);
+    }
+
+    /**
+     * Returns the fastest path between the origin and the destination when leaving at the given time.
+     * The arrival time is available from getArrivalTime afterwards.
+     * @param origin source node
+     * @param destination destination node
+     * @param departureTime time of departure from the origin
+     * @return the ArrayList of nodeIds (of nodes on the fastest path),
+     * empty if the destination can not be reached from the origin
+     */
+    public List<Integer> computeShortestPath(CityNode origin, CityNode destination, int departureTime) {
+        int length = computeShortestPath(getNodeId(origin), getNodeId(destination), departureTime, pathBuffer);
+
+        shortestPath = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            shortestPath.add(pathBuffer[i]);
+        }
+        return shortestPath;
+    }
+
+    /**
+     * Allocation-free version of computeShortestPath for callers that run many queries
+     * @param originId node id of the origin
+     * @param destId node id of the destination
+     * @param departureTime time of departure from the origin
+     * @param pathBuffer receives the node ids on the fastest path, origin first;
+     * numNodes entries are always enough
+     * @return number of nodes on the fastest path, 0 if the destination can not be reached
+     * @throws IllegalArgumentException if the path does not fit into the buffer
+     */
+    public int computeShortestPath(int originId, int destId, int departureTime, int[] pathBuffer) {
+        int length = 0;
+        int i;
+
+        search(originId, destId, departureTime);
+        if (stamp[destId] != generation) {
+            lastArrival = INF;
+            return 0;
+        }
+        lastArrival = arrival[destId];
+        for (int v = destId; v != -1; v = parent[v]) {
+            length++;
+        }
+        if (length > pathBuffer.length) {
+            throw new IllegalArgumentException("The path has " + length + " nodes, the buffer only holds "
+                    + pathBuffer.length);
+        }
+        i = length;
+        for (int v = destId; v != -1; v = parent[v]) {
+            pathBuffer[--i] = v;
+        }
+        return length;
+    }
+
+    /**
+     * Runs the time-dependent Dijkstra's algorithm from the origin until the destination is settled
+     * @param originId node id of the origin
+     * @param destId node id of the destination
+     * @param departureTime time of departure from the origin
+     */
+    private void search(int originId, int destId, int departureTime) {
+        int v;
+        int u;
+        int newArrival;
+        int end;
+
+        generation++;
+        if (generation == 0) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        numSettled = 0;
+        queue.clear();
+        stamp[originId] = generation;
+        arrival[originId] = departureTime;
+        parent[originId] = -1;
+        queue.insert(originId, departureTime);
+        while (!queue.isEmpty()) {
+            v = queue.removeMin();
+            numSettled++;
+            if (v == destId) {
+                break; // FIFO: no later label can arrive earlier
+            }
+            end = storage.firstEdge(v + 1);
+            for (int e = storage.firstEdge(v); e < end; e++) {
+                u = storage.target(e);
+                newArrival = arrival[v] + functions.travelTime(e, arrival[v]);
+                if (stamp[u] != generation) { // first time the search reaches u
+                    stamp[u] = generation;
+                    arrival[u] = newArrival;
+                    parent[u] = v;
+                    queue.insert(u, newArrival);
+                } else if (queue.contains(u) && newArrival < arrival[u]) {
+                    arrival[u] = newArrival;
+                    parent[u] = v;
+                    queue.decreaseKey(u, newArrival);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the arrival time at the destination of the last query
+     * @return arrival time, Integer.MAX_VALUE if the destination could not be reached
+     */
+    public int getArrivalTime() {
+        return lastArrival;
+    }
+
+    /**
+     * Sets the departure time used by computeShortestPath(CityNode, CityNode)
+     * @param departureTime time of departure from the origin
+     */
+    public void setDepartureTime(int departureTime) {
+        this.departureTime = departureTime;
+    }
+
+    /**
+     * Returns the departure time used by computeShortestPath(CityNode, CityNode)
+     * @return time of departure from the origin
+     */
+    public int getDepartureTime() {
+        return departureTime;
+    }
+
+    /**
+     * Sets the priority queue of the search, for example a MinHeap or a PairingHeap.
+     * Arrival times leave the heap in increasing order, so a RadixHeap works too.
+     * @param queue a queue sized for the number of nodes of the graph
+     */
+    public void setQueue(IndexedMinQueue queue) {
+        this.queue = queue;
+    }
+
+    /**
+     * Returns the number of nodes settled by the last call to computeShortestPath
+     * @return number of settled nodes
+     */
+    public int getNumSettled() {
+        return numSettled;
+    }
+
+    /**
+     * Gets the nodeId of a given CityNode
+     * @param cityNode the CityNode whose nodeId we want
+     * @return the nodeId of the cityNode
+     */
+    private int getNodeId(CityNode cityNode) {
+        if (graph == null) {
+            throw new UnsupportedOperationException("The graph has no city names, use node ids");
+        }
+        return graph.getId(cityNode);
+    }
+
+    /**
+     * Return the fastest path as a 2D array of Points (see Graph.getPath)
+     * @return 2D array of points, null if there is no path to show
+     */
+    public Point[][] getPath() {
+        if (shortestPath == null || shortestPath.isEmpty())
+            return null;
+        return graph.getPath(shortestPath);
+    }
+
+    /** Set the shortestPath to null.
+     *  Called when the user presses Reset button.
+     */
+    public void resetPath() {
+        shortestPath = null;
+    }
+}
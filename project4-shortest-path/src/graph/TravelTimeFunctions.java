@@ -0,0 +1,229 @@
+package graph;
+
+import java.util.Arrays;
+
+/** Optional time-dependent travel times for the edges of a graph.
+ *
+ *  A travel time function is periodic (usually with a period of one day)
+ *  and piecewise linear: it is given by breakpoints (t_i, c_i), sorted by
+ *  departure time t_i in [0, period), and the travel time of a departure
+ *  between two breakpoints is interpolated linearly, wrapping around from
+ *  the last breakpoint to the first one of the next period. Times and
+ *  travel times are in the units of the edge costs.
+ *
+ *  Functions are stored once and shared by any number of edges (a "rush
+ *  hour" profile usually fits many roads): the breakpoints of all functions
+ *  sit next to each other in two primitive arrays, and every edge holds the
+ *  id of its function, or -1 to keep the static cost of the graph.
+ *
+ *  Every function must have the FIFO property: leaving later never means
+ *  arriving earlier. For a piecewise linear function that means no segment
+ *  falls faster than time passes (slope at least -1), which addFunction
+ *  checks. With FIFO functions Dijkstra's algorithm stays label-setting,
+ *  see TimeDependentDijkstra. Interpolated travel times are rounded down,
+ *  which keeps the property for integer times.
+ */
+public class TravelTimeFunctions {
+    private final GraphStorage graph; // the graph whose edges have the functions
+    private final int period; // the functions repeat after this much time
+    private int[] functionOf; // id of the function of each edge, -1 for the static cost
+    private int[] firstPoint; // the breakpoints of function f are at firstPoint[f] .. firstPoint[f + 1] - 1
+    private int[] pointTimes; // departure time of each breakpoint, in [0, period)
+    private int[] pointCosts; // travel time of each breakpoint
+    private int numFunctions; // number of functions added
+    private int numPoints; // number of breakpoints of all functions
+
+    /**
+     * Constructor; every edge starts with its static cost
+     * @param graph the graph
+     * @param period the length of the period of the functions, for example 86400 for a day in seconds
+     * @throws IllegalArgumentException if the period is not positive
+     */
+    public TravelTimeFunctions(GraphStorage graph, int period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("The period must be positive: " + period);
+        }
+        this.graph = graph;
+        this.period = period;
+        this.functionOf = new int[graph.numEdges()];
+        this.firstPoint = new int[17];
+        this.pointTimes = new int[64];
+        this.pointCosts = new int[64];
+        Arrays.fill(functionOf, -1);
+    }
+
+    /**
+     * Adds a travel time function, to be assigned to edges with setFunction
+     * @param times departure times of the breakpoints, strictly increasing, in [0, period)
+     * @param travelTimes travel time at each breakpoint, not negative
+     * @return the id of the function
+     * @throws IllegalArgumentException if the breakpoints are not valid or the function is not FIFO
+     */
+    public int addFunction(int[] times, int[] travelTimes) {
+        int n = times.length;
+        int start;
+
+        if (n == 0 || n != travelTimes.length) {
+            throw new IllegalArgumentException("A function needs the same number (at least one) of times and travel times");
+        }
+        for (int i = 0; i < n; i++) {
+            if (times[i] < 0 || times[i] >= period || (i > 0 && times[i] <= times[i - 1])) {
+                throw new IllegalArgumentException("The times must increase and lie in [0, " + period + "): "
+                        + Arrays.toString(times));
+            }
+            if (travelTimes[i] < 0) {
+                throw new IllegalArgumentException("Travel times can not be negative: " + travelTimes[i]);
+            }
+            if (i > 0) {
+                checkFifo(times[i - 1], travelTimes[i - 1], times[i], travelTimes[i]);
+            }
+        }
+        checkFifo(times[n - 1], travelTimes[n - 1], times[0] + period, travelTimes[0]); // into the next period
+
+        if (numFunctions + 2 > firstPoint.length) {
+            firstPoint = Arrays.copyOf(firstPoint, firstPoint.length * 2);
+        }
+        if (numPoints + n > pointTimes.length) {
+            pointTimes = Arrays.copyOf(pointTimes, Math.max(pointTimes.length * 2, numPoints + n));
+            pointCosts = Arrays.copyOf(pointCosts, pointTimes.length);
+        }
+        start = numPoints;
+        System.arraycopy(times, 0, pointTimes, start, n);
+        System.arraycopy(travelTimes, 0, pointCosts, start, n);
+        numPoints += n;
+        firstPoint[numFunctions] = start;
+        firstPoint[numFunctions + 1] = numPoints;
+        return numFunctions++;
+    }
+
+    /**
+     * Throws an exception if the segment between two breakpoints falls faster
+     * than time passes, so that a later departure would arrive earlier
+     */
+    private void checkFifo(int time1, int cost1, long time2, int cost2) {
+        if ((long) cost2 - cost1 < -(time2 - time1)) {
+            throw new IllegalArgumentException("The function is not FIFO: leaving at " + time2 + " arrives before"
+                    + " leaving at " + time1 + " (travel time " + cost1 + " drops to " + cost2 + ")");
+        }
+    }
+
+    /**
+     * Gives an edge a travel time function
+     * @param edge id of the edge in the CSR arrays of the graph
+     * @param functionId id returned by addFunction, or -1 for the static cost of the graph
+     */
+    public void setFunction(int edge, int functionId) {
+        if (functionId < -1 || functionId >= numFunctions) {
+            throw new IllegalArgumentException("No such function: " + functionId);
+        }
+        functionOf[edge] = functionId;
+    }
+
+    /**
+     * Gives every edge from one node to another a travel time function.
+     * Only that direction changes; call it again with the nodes swapped for the other one.
+     * @param fromId id of the node the edges leave
+     * @param toId id of the node the edges lead to
+     * @param functionId id returned by addFunction, or -1 for the static cost of the graph
+     * @throws IllegalArgumentException if there is no edge from fromId to toId
+     */
+    public void setFunction(int fromId, int toId, int functionId) {
+        boolean found = false;
+        int end = graph.firstEdge(fromId + 1);
+
+        for (int e = graph.firstEdge(fromId); e < end; e++) {
+            if (graph.target(e) == toId) {
+                setFunction(e, functionId);
+                found = true;
+            }
+        }
+        if (!found) {
+            throw new IllegalArgumentException("There is no edge from " + fromId + " to " + toId);
+        }
+    }
+
+    /**
+     * Returns the function of an edge
+     * @param edge id of the edge
+     * @return id of the function, -1 if the edge has its static cost
+     */
+    public int getFunction(int edge) {
+        return functionOf[edge];
+    }
+
+    /**
+     * Returns the time it takes to traverse an edge when leaving at the given time
+     * @param edge id of the edge
+     * @param departureTime the time of departure, any value; the functions are periodic
+     * @return the travel time: the static cost of the edge if it has no function
+     */
+    public int travelTime(int edge, int departureTime) {
+        int f = functionOf[edge];
+        int first;
+        int last;
+        int t;
+        int low;
+        int high;
+        int mid;
+        long time0;
+        long time1;
+        int cost0;
+        int cost1;
+
+        if (f < 0) {
+            return graph.cost(edge);
+        }
+        first = firstPoint[f];
+        last = firstPoint[f + 1] - 1;
+        if (first == last) {
+            return pointCosts[first];
+        }
+        t = Math.floorMod(departureTime, period);
+        if (t < pointTimes[first] || t >= pointTimes[last]) { // between the last breakpoint and the first one
+            time0 = pointTimes[last] - (t < pointTimes[first] ? (long) period : 0);
+            time1 = pointTimes[first] + (t < pointTimes[first] ? 0 : (long) period);
+            cost0 = pointCosts[last];
+            cost1 = pointCosts[first];
+        } else {
+            low = first; // the last breakpoint at or before t is in low .. high - 1
+            high = last;
+            while (high - low > 1) {
+                mid = (low + high) >>> 1;
+                if (pointTimes[mid] <= t) {
+                    low = mid;
+                } else {
+                    high = mid;
+                }
+            }
+            time0 = pointTimes[low];
+            time1 = pointTimes[low + 1];
+            cost0 = pointCosts[low];
+            cost1 = pointCosts[low + 1];
+        }
+        return cost0 + (int) Math.floorDiv((long) (cost1 - cost0) * (t - time0), time1 - time0);
+    }
+
+    /**
+     * Returns the graph the functions belong to
+     * @return the graph
+     */
+    public GraphStorage getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the period of the functions
+     * @return length of the period
+     */
+    public int getPeriod() {
+        return period;
+    }
+
+    /**
+     * Returns the number of functions added with addFunction
+     * @return number of functions
+     */
+    public int numFunctions() {
+        return numFunctions;
+    }
+}
@@ -0,0 +1,136 @@
+package graph;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Runs seeded random sequences of insert, decreaseKey, removeMin, contains
+ *  and clear on a PriorityQueue and on a MinHeap, and checks that both
+ *  queues give the same answers.
+ */
+public class PriorityQueueTest {
+    private static final int NUM_NODES = 200;
+    private static final int NUM_OPERATIONS = 20000;
+
+    /**
+     * With keys that are all different, both queues must remove the nodes in the same order
+     */
+    @Test
+    public void distinctKeysGiveTheSameOrder() {
+        for (long seed = 1; seed <= 20; seed++) {
+            // key * NUM_NODES + nodeId never ties between two nodes
+            runRandomOperations(seed, 1000, true);
+        }
+    }
+
+    /**
+     * With many equal keys, the nodes of a tie may leave in either order, but the keys may not
+     */
+    @Test
+    public void tiedKeysGiveTheSameKeyOrder() {
+        for (long seed = 1; seed <= 20; seed++) {
+            runRandomOperations(seed, 8, false);
+        }
+    }
+
+    @Test
+    public void clearEmptiesTheQueue() {
+        PriorityQueue queue = new PriorityQueue(NUM_NODES);
+
+        for (int v = 0; v < NUM_NODES; v += 3) {
+            queue.insert(v, NUM_NODES - v);
+        }
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.getSize());
+        for (int v = 0; v < NUM_NODES; v++) {
+            assertFalse(queue.contains(v));
+        }
+        queue.insert(5, 7);
+        queue.insert(4, 3);
+        assertEquals(4, queue.removeMin());
+        assertEquals(5, queue.removeMin());
+        assertTrue(queue.isEmpty());
+    }
+
+    /**
+     * Applies the same random operations to both queues and compares their results
+     * @param seed seed of the random operations
+     * @param keyRange keys are drawn from 0 .. keyRange - 1
+     * @param distinctKeys whether every node gets a key no other node has
+     */
+    private void runRandomOperations(long seed, int keyRange, boolean distinctKeys) {
+        Random random = new Random(seed);
+        PriorityQueue queue = new PriorityQueue(NUM_NODES);
+        MinHeap heap = new MinHeap(NUM_NODES);
+        int[] keys = new int[NUM_NODES]; // the key of every node in the queues
+        int[] removed = new int[2]; // the nodes removed from the queue and from the heap
+        int lastKey = Integer.MIN_VALUE; // keys leave in increasing order until the next insert
+        int v;
+        int key;
+
+        for (int op = 0; op < NUM_OPERATIONS; op++) {
+            String where = "seed " + seed + ", operation " + op;
+            int choice = random.nextInt(100);
+            if (choice < 40) {
+                v = random.nextInt(NUM_NODES);
+                key = nextKey(random, keyRange, distinctKeys, v);
+                assertEquals(where, heap.contains(v), queue.contains(v));
+                if (!heap.contains(v)) {
+                    queue.insert(v, key);
+                    heap.insert(v, key);
+                    keys[v] = key;
+                    lastKey = Integer.MIN_VALUE;
+                }
+            } else if (choice < 65) {
+                v = random.nextInt(NUM_NODES);
+                assertEquals(where, heap.contains(v), queue.contains(v));
+                if (heap.contains(v) && keys[v] > 0) {
+                    key = keys[v] - 1 - random.nextInt(Math.min(keys[v], distinctKeys ? 100 * NUM_NODES : 3));
+                    if (distinctKeys) {
+                        key -= Math.floorMod(key - v, NUM_NODES); // keep key % NUM_NODES == v
+                    }
+                    if (key >= 0) {
+                        queue.decreaseKey(v, key);
+                        heap.decreaseKey(v, key);
+                        keys[v] = key;
+                        lastKey = Integer.MIN_VALUE;
+                    }
+                }
+            } else if (choice < 95) {
+                assertEquals(where, heap.isEmpty(), queue.isEmpty());
+                if (!heap.isEmpty()) {
+                    removed[0] = queue.removeMin();
+                    removed[1] = heap.removeMin();
+                    if (distinctKeys) {
+                        assertEquals(where, removed[1], removed[0]);
+                    }
+                    assertEquals(where, keys[removed[1]], keys[removed[0]]);
+                    assertTrue(where, keys[removed[0]] >= lastKey);
+                    assertFalse(where, queue.contains(removed[0]));
+                    lastKey = keys[removed[0]];
+                }
+            } else if (choice < 99) {
+                v = random.nextInt(NUM_NODES);
+                assertEquals(where, heap.contains(v), queue.contains(v));
+            } else {
+                queue.clear();
+                heap.clear();
+            }
+            assertEquals(where, heap.getSize(), queue.getSize());
+            assertEquals(where, heap.isEmpty(), queue.isEmpty());
+        }
+    }
+
+    /**
+     * Draws a key for a node; distinct keys are congruent to the node id modulo NUM_NODES
+     */
+    private static int nextKey(Random random, int keyRange, boolean distinctKeys, int nodeId) {
+        int key = random.nextInt(keyRange);
+        return distinctKeys ? key * NUM_NODES + nodeId : key;
+    }
+}